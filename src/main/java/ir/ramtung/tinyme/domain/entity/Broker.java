@@ -5,30 +5,51 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 @ToString
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-@Builder
 public class Broker {
     @Getter
     @EqualsAndHashCode.Include
-    private long brokerId;
-    @Getter
-    private String name;
+    private final long brokerId;
     @Getter
-    private long credit;
+    private final String name;
+    private final AtomicLong credit;
+
+    @Builder
+    private Broker(long brokerId, String name, long credit) {
+        this.brokerId = brokerId;
+        this.name = name;
+        this.credit = new AtomicLong(credit);
+    }
+
+    public long getCredit() {
+        return credit.get();
+    }
 
     public void increaseCreditBy(long amount) {
         assert amount >= 0;
-        credit += amount;
+        credit.addAndGet(amount);
     }
 
     public void decreaseCreditBy(long amount) {
         assert amount >= 0;
-        credit -= amount;
+        credit.addAndGet(-amount);
     }
 
+    public boolean tryReserveCredit(long amount) {
+        assert amount >= 0;
+        long current;
+        do {
+            current = credit.get();
+            if (current < amount)
+                return false;
+        } while (!credit.compareAndSet(current, current - amount));
+        return true;
+    }
 
     public boolean hasEnoughCredit(long amount) {
-        return credit >= amount;
+        return credit.get() >= amount;
     }
 }
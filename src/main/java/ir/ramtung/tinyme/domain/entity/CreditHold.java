@@ -0,0 +1,42 @@
+package ir.ramtung.tinyme.domain.entity;
+
+final class CreditHold {
+    private long held;
+    private long drawn;
+
+    void hold(long amount) {
+        assert amount >= 0;
+        held = amount;
+        drawn = 0;
+    }
+
+    boolean tryReserve(Broker broker, long amount) {
+        long fromHold = Math.min(held, amount);
+        if (!broker.tryReserveCredit(amount - fromHold))
+            return false;
+        held -= fromHold;
+        drawn += fromHold;
+        return true;
+    }
+
+    void refund(Broker broker, long amount) {
+        long toHold = Math.min(drawn, amount);
+        drawn -= toHold;
+        held += toHold;
+        broker.increaseCreditBy(amount - toHold);
+    }
+
+    long release() {
+        long released = held;
+        held = 0;
+        drawn = 0;
+        return released;
+    }
+
+    void moveTo(CreditHold other) {
+        other.held = held;
+        other.drawn = drawn;
+        held = 0;
+        drawn = 0;
+    }
+}
@@ -0,0 +1,33 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public class IndicativeOpeningPrice {
+    private final PriceLadder buyLadder;
+    private final PriceLadder sellLadder;
+    private boolean stale = true;
+    private int lastTradePrice;
+    private CustomPair value;
+
+    public IndicativeOpeningPrice(PriceLadder buyLadder, PriceLadder sellLadder) {
+        this.buyLadder = buyLadder;
+        this.sellLadder = sellLadder;
+    }
+
+    public void quantityChanged(Side side, int price) {
+        if (!stale && isMarketable(side, price))
+            stale = true;
+    }
+
+    public CustomPair get(int lastTradePrice) {
+        if (stale || this.lastTradePrice != lastTradePrice) {
+            value = OpeningPriceCalculator.calculate(buyLadder, sellLadder, lastTradePrice);
+            this.lastTradePrice = lastTradePrice;
+            stale = false;
+        }
+        return value;
+    }
+
+    private boolean isMarketable(Side side, int price) {
+        PriceLevel bestOpposite = (side == Side.BUY ? sellLadder : buyLadder).best();
+        return bestOpposite != null && !(side == Side.BUY ? price < bestOpposite.getPrice() : price > bestOpposite.getPrice());
+    }
+}
@@ -0,0 +1,104 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public class OpeningPriceCalculator {
+    private OpeningPriceCalculator() {
+    }
+
+    public static CustomPair calculate(PriceLadder buyLadder, PriceLadder sellLadder, int lastTradePrice) {
+        int sellLevels = sellLadder.size();
+        int[] sellPrices = new int[sellLevels];
+        int[] cumulativeSupply = new int[sellLevels];
+        int supply = 0;
+        int index = 0;
+        for (PriceLevel level : sellLadder.levels()) {
+            supply += level.getQuantity();
+            sellPrices[index] = level.getPrice();
+            cumulativeSupply[index] = supply;
+            index++;
+        }
+
+        int firstSellAtOrAboveLastTrade = 0;
+        while (firstSellAtOrAboveLastTrade < sellLevels && sellPrices[firstSellAtOrAboveLastTrade] < lastTradePrice)
+            firstSellAtOrAboveLastTrade++;
+
+        int openingPrice = 0;
+        int tradeableQuantity = 0;
+        int maxFulfilledSellPriceByBuy = 0;
+        int demand = 0;
+        int lastMatchingSell = sellLevels - 1;
+        int demandCrossing = 0;
+
+        for (PriceLevel level : buyLadder.levels()) {
+            int buyPrice = level.getPrice();
+            int demandBeforeLastOrder = demand + level.getQuantity() - level.lastOrderQuantity();
+            demand += level.getQuantity();
+
+            while (lastMatchingSell >= 0 && sellPrices[lastMatchingSell] > buyPrice)
+                lastMatchingSell--;
+            int matchingSupply = lastMatchingSell >= 0 ? cumulativeSupply[lastMatchingSell] : 0;
+            int exchangedQuantity = Math.min(matchingSupply, demand);
+            if (exchangedQuantity < tradeableQuantity)
+                continue;
+
+            while (demandCrossing < sellLevels && cumulativeSupply[demandCrossing] < demand)
+                demandCrossing++;
+            int sellPrice = nearestSellPrice(sellPrices, lastMatchingSell, Math.min(demandCrossing, lastMatchingSell),
+                    firstSellAtOrAboveLastTrade, lastTradePrice);
+            int exchangedBeforeLastOrder = level.size() > 1
+                    ? Math.max(tradeableQuantity, Math.min(matchingSupply, demandBeforeLastOrder))
+                    : tradeableQuantity;
+
+            if (exchangedQuantity > tradeableQuantity)
+                openingPrice = buyPrice;
+            else
+                openingPrice = getOptimalOpeningPrice(lastTradePrice, openingPrice, buyPrice);
+
+            if (exchangedQuantity > exchangedBeforeLastOrder)
+                maxFulfilledSellPriceByBuy = sellPrice;
+            else
+                maxFulfilledSellPriceByBuy = getOptimalOpeningPrice(lastTradePrice, openingPrice, sellPrice);
+
+            tradeableQuantity = exchangedQuantity;
+        }
+
+        openingPrice = finalizeOpeningPrice(lastTradePrice, openingPrice, maxFulfilledSellPriceByBuy,
+                tradeableQuantity);
+
+        return new CustomPair(openingPrice, tradeableQuantity);
+    }
+
+    private static int nearestSellPrice(int[] sellPrices, int lastMatchingSell, int demandCrossing,
+                                        int firstSellAtOrAboveLastTrade, int lastTradePrice) {
+        if (lastMatchingSell < 0)
+            return Integer.MIN_VALUE;
+        if (firstSellAtOrAboveLastTrade <= demandCrossing)
+            return sellPrices[demandCrossing];
+        if (firstSellAtOrAboveLastTrade > lastMatchingSell)
+            return sellPrices[lastMatchingSell];
+        int below = sellPrices[firstSellAtOrAboveLastTrade - 1];
+        int above = sellPrices[firstSellAtOrAboveLastTrade];
+        return lastTradePrice - below > above - lastTradePrice ? above : below;
+    }
+
+    private static int getOptimalOpeningPrice(int lastTradePrice, int currentOpeningPrice, int newPrice) {
+        if (Math.abs(lastTradePrice - currentOpeningPrice) >= Math.abs(lastTradePrice - newPrice)) {
+            return newPrice;
+        }
+        return currentOpeningPrice;
+    }
+
+    private static int finalizeOpeningPrice(int lastTradePrice, int openingPrice, int maxFulfilledSellPriceByBuy,
+                                            int tradeableQuantity) {
+        if (tradeableQuantity == 0) {
+            return 0;
+        }
+
+        if (openingPrice >= lastTradePrice && lastTradePrice >= maxFulfilledSellPriceByBuy) {
+            return lastTradePrice;
+        } else if (Math.abs(lastTradePrice - openingPrice) >= Math.abs(lastTradePrice - maxFulfilledSellPriceByBuy)) {
+            return maxFulfilledSellPriceByBuy;
+        }
+
+        return openingPrice;
+    }
+}
@@ -1,6 +1,7 @@
 package ir.ramtung.tinyme.domain.entity;
 
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -28,6 +29,10 @@ public class Order {
     protected int minimumExecutionQuantity = 0;
     @Builder.Default
     protected boolean minimumQuantityExecuted = false;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final CreditHold creditHold = new CreditHold();
 
     public Order(long orderId, Security security, Side side, int quantity, int price, Broker broker,
             Shareholder shareholder, LocalDateTime entryTime, OrderStatus status, int minimumExecutionQuantity,
@@ -96,6 +101,10 @@ public class Order {
         quantity -= amount;
     }
 
+    void restoreTotalQuantity(int totalQuantity) {
+        quantity = totalQuantity;
+    }
+
     public void makeQuantityZero() {
         quantity = 0;
     }
@@ -133,6 +142,26 @@ public class Order {
         return quantity;
     }
 
+    public void holdCredit(long amount) {
+        creditHold.hold(amount);
+    }
+
+    public boolean tryReserveCredit(long amount) {
+        return creditHold.tryReserve(broker, amount);
+    }
+
+    public void refundCredit(long amount) {
+        creditHold.refund(broker, amount);
+    }
+
+    public long releaseHeldCredit() {
+        return creditHold.release();
+    }
+
+    void moveHeldCreditTo(Order other) {
+        creditHold.moveTo(other.creditHold);
+    }
+
     public void setMinimumQuantityExecuted() {
         minimumQuantityExecuted = true;
     }
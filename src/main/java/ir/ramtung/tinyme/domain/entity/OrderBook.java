@@ -2,70 +2,180 @@ package ir.ramtung.tinyme.domain.entity;
 
 import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 
-@Getter
 public class OrderBook {
-    private final LinkedList<Order> buyQueue;
-    private final LinkedList<Order> sellQueue;
+    @Getter
+    private final OrderBookMode mode;
+    private final PriceLadder buyLadder;
+    private final PriceLadder sellLadder;
+    private final HashMap<Long, OrderNode> buyIndex;
+    private final HashMap<Long, OrderNode> sellIndex;
+    private final OwnerIndex buyOwners;
+    private final OwnerIndex sellOwners;
+    private final ShareholderSellQuantities sellQuantities;
+    private final IndicativeOpeningPrice indicativeOpeningPrice;
 
     public OrderBook() {
-        buyQueue = new LinkedList<>();
-        sellQueue = new LinkedList<>();
+        this(OrderBookMode.PRICE_TREE, 1);
+    }
+
+    public OrderBook(OrderBookMode mode, int tickSize) {
+        this.mode = mode;
+        this.buyLadder = createLadder(mode, Side.BUY, tickSize);
+        this.sellLadder = createLadder(mode, Side.SELL, tickSize);
+        this.buyIndex = new HashMap<>();
+        this.sellIndex = new HashMap<>();
+        this.buyOwners = new OwnerIndex();
+        this.sellOwners = new OwnerIndex();
+        this.sellQuantities = new ShareholderSellQuantities();
+        this.indicativeOpeningPrice = new IndicativeOpeningPrice(buyLadder, sellLadder);
     }
 
     public void enqueue(Order order) {
-        List<Order> queue = getQueue(order.getSide());
-        ListIterator<Order> it = queue.listIterator();
-        while (it.hasNext()) {
-            if (order.queuesBefore(it.next())) {
-                it.previous();
-                break;
+        order.queue();
+        track(getLadder(order.getSide()).findOrCreate(order.getPrice()).addLast(order));
+    }
+
+    public void enqueueAll(Collection<? extends Order> orders) {
+        List<Order> sorted = PriceSort.sort(orders,
+                order -> order.getSide() == Side.BUY ? -order.getPrice() : order.getPrice());
+        PriceLevel level = null;
+        Side side = null;
+        for (Order order : sorted) {
+            if (order.getSide() != side || order.getPrice() != level.getPrice()) {
+                side = order.getSide();
+                level = getLadder(side).findOrCreate(order.getPrice());
             }
+            order.queue();
+            track(level.addLast(order));
         }
-        order.queue();
-        it.add(order);
+    }
+
+    public void restore(Order order) {
+        track(getLadder(order.getSide()).findOrCreate(order.getPrice()).addLast(order));
+    }
+
+    private static PriceLadder createLadder(OrderBookMode mode, Side side, int tickSize) {
+        if (mode == OrderBookMode.TICK_ARRAY)
+            return new TickPriceLadder(side, tickSize);
+        return new PriceLadder(side);
+    }
+
+    private PriceLadder getLadder(Side side) {
+        return side == Side.BUY ? buyLadder : sellLadder;
+    }
+
+    private HashMap<Long, OrderNode> getIndex(Side side) {
+        return side == Side.BUY ? buyIndex : sellIndex;
+    }
+
+    private OwnerIndex getOwners(Side side) {
+        return side == Side.BUY ? buyOwners : sellOwners;
+    }
+
+    public LinkedList<Order> getBuyQueue() {
+        return getQueue(Side.BUY);
+    }
+
+    public LinkedList<Order> getSellQueue() {
+        return getQueue(Side.SELL);
     }
 
     private LinkedList<Order> getQueue(Side side) {
-        return side == Side.BUY ? buyQueue : sellQueue;
+        LinkedList<Order> queue = new LinkedList<>();
+        for (PriceLevel level : getLadder(side).levels())
+            for (Order order : level)
+                queue.add(order);
+        return queue;
     }
 
     public Order findByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        for (Order order : queue) {
-            if (order.getOrderId() == orderId)
-                return order;
+        OrderNode node = getIndex(side).get(orderId);
+        return node == null ? null : node.getOrder();
+    }
+
+    public List<Order> removeOrders(Side side, Broker broker, Shareholder shareholder) {
+        List<OrderNode> nodes;
+        if (broker == null && shareholder == null) {
+            nodes = new ArrayList<>(getIndex(side).size());
+            for (PriceLevel level : getLadder(side).levels())
+                for (OrderNode node = level.firstNode(); node != null; node = node.getNext())
+                    nodes.add(node);
+        } else
+            nodes = getOwners(side).ownedBy(broker, shareholder);
+        List<Order> removed = new ArrayList<>(nodes.size());
+        for (OrderNode node : nodes) {
+            getIndex(side).remove(node.getOrder().getOrderId());
+            unlink(side, node);
+            removed.add(node.getOrder());
         }
-        return null;
+        return removed;
     }
 
     public boolean removeByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        var it = queue.listIterator();
-        while (it.hasNext()) {
-            if (it.next().getOrderId() == orderId) {
-                it.remove();
-                return true;
-            }
-        }
-        return false;
+        OrderNode node = getIndex(side).remove(orderId);
+        if (node == null)
+            return false;
+        unlink(side, node);
+        return true;
+    }
+
+    private void track(OrderNode node) {
+        Order order = node.getOrder();
+        getIndex(order.getSide()).put(order.getOrderId(), node);
+        getOwners(order.getSide()).add(node);
+        node.quantity = order.getTotalQuantity();
+        adjustQuantity(node, node.quantity);
+    }
+
+    private void unlink(Side side, OrderNode node) {
+        adjustQuantity(node, -node.quantity);
+        getOwners(side).remove(node);
+        PriceLevel level = (PriceLevel) node.getQueue();
+        level.unlink(node);
+        if (level.isEmpty())
+            getLadder(side).remove(level);
+    }
+
+    private void adjustQuantity(OrderNode node, int amount) {
+        Order order = node.getOrder();
+        PriceLevel level = (PriceLevel) node.getQueue();
+        level.addQuantity(amount);
+        indicativeOpeningPrice.quantityChanged(order.getSide(), level.getPrice());
+        if (order.getSide() == Side.SELL)
+            sellQuantities.add(order.getShareholder(), amount);
+    }
+
+    public void decreaseQuantity(Order order, int amount) {
+        order.decreaseQuantity(amount);
+        syncQuantity(order);
+    }
+
+    public void syncQuantity(Order order) {
+        OrderNode node = getIndex(order.getSide()).get(order.getOrderId());
+        if (node == null || node.getOrder() != order)
+            return;
+        int quantity = order.getTotalQuantity();
+        adjustQuantity(node, quantity - node.quantity);
+        node.quantity = quantity;
     }
 
     public Order matchWithFirst(Order newOrder) {
-        var queue = getQueue(newOrder.getSide().opposite());
-        if (newOrder.matches(queue.getFirst()))
-            return queue.getFirst();
+        PriceLevel best = getLadder(newOrder.getSide().opposite()).best();
+        if (best != null && newOrder.matches(best.first()))
+            return best.first();
         else
             return null;
     }
 
     public void putBack(Order order) {
-        LinkedList<Order> queue = getQueue(order.getSide());
         order.queue();
-        queue.addFirst(order);
+        track(getLadder(order.getSide()).findOrCreate(order.getPrice()).addFirst(order));
     }
 
     public void restoreSellOrder(Order sellOrder) {
@@ -79,108 +189,43 @@ public class OrderBook {
     }
 
     public boolean hasOrderOfType(Side side) {
-        return !getQueue(side).isEmpty();
+        return !getLadder(side).isEmpty();
     }
 
     public void removeFirst(Side side) {
-        getQueue(side).removeFirst();
+        OrderNode first = getLadder(side).best().firstNode();
+        getIndex(side).remove(first.getOrder().getOrderId());
+        unlink(side, first);
     }
 
     public int totalSellQuantityByShareholder(Shareholder shareholder) {
-        return sellQueue.stream()
-                .filter(order -> order.getShareholder().equals(shareholder))
-                .mapToInt(Order::getTotalQuantity)
-                .sum();
+        int total = sellQuantities.get(shareholder);
+        assert total == scanSellQuantityByShareholder(shareholder);
+        return total;
+    }
+
+    private int scanSellQuantityByShareholder(Shareholder shareholder) {
+        int total = 0;
+        for (PriceLevel level : sellLadder.levels())
+            for (Order order : level)
+                if (order.getShareholder().equals(shareholder))
+                    total += order.getTotalQuantity();
+        return total;
     }
 
     public LinkedList<Order> findOpenOrders(int openingPrice, Side side) {
         LinkedList<Order> orders = new LinkedList<>();
-        LinkedList<Order> queue = this.getQueue(side);
-        for (Order order : queue) {
-            if (order.getSide() == Side.BUY && order.getPrice() >= openingPrice)
-                orders.add(order);
-            if (order.getSide() == Side.SELL && order.getPrice() <= openingPrice)
+        PriceLadder ladder = getLadder(side);
+        for (PriceLevel level : ladder.levels()) {
+            if (ladder.isBetter(openingPrice, level.getPrice()))
+                break;
+            for (Order order : level)
                 orders.add(order);
         }
         return orders;
     }
 
-    public CustomPair calculateTradeableQuantityAndSellPrice(int buyPrice, int lastTradePrice,
-                                                             int maxTradeableQuantityBuyPrice) {
-        int maxFulfilledSellQuantity = 0;
-        int nearestSellPrice = Integer.MIN_VALUE;
-
-        for (Order sellOrder : sellQueue) {
-            if (sellOrder.getPrice() <= buyPrice) {
-                if (shouldUpdateNearestSellPrice(maxFulfilledSellQuantity, maxTradeableQuantityBuyPrice, lastTradePrice,
-                        nearestSellPrice, sellOrder)) {
-                    nearestSellPrice = sellOrder.getPrice();
-                }
-                maxFulfilledSellQuantity += sellOrder.getTotalQuantity();
-            } else {
-                break;
-            }
-        }
-
-        return new CustomPair(maxFulfilledSellQuantity, nearestSellPrice);
-    }
-
     public CustomPair findOpeningPrice(int lastTradePrice) {
-        int openingPrice = 0;
-        int tradeableQuantity = 0;
-        int maxFulfilledSellPriceByBuy = 0;
-        int maxTradeableQuantityBuyPrice = 0;
-
-        for (Order buyOrder : buyQueue) {
-            maxTradeableQuantityBuyPrice += buyOrder.getTotalQuantity();
-            CustomPair tradeablePair = calculateTradeableQuantityAndSellPrice(buyOrder.getPrice(), lastTradePrice,
-                    maxTradeableQuantityBuyPrice);
-
-            int maxSellQuantityForBuyPrice = tradeablePair.getFirst();
-            int exchangedQuantityValue = Math.min(maxSellQuantityForBuyPrice, maxTradeableQuantityBuyPrice);
-            int sellPrice = tradeablePair.getSecond();
-
-            if (exchangedQuantityValue > tradeableQuantity) {
-                openingPrice = buyOrder.getPrice();
-                tradeableQuantity = exchangedQuantityValue;
-                maxFulfilledSellPriceByBuy = sellPrice;
-            } else if (exchangedQuantityValue == tradeableQuantity) {
-                openingPrice = getOptimalOpeningPrice(lastTradePrice, openingPrice, buyOrder.getPrice());
-                maxFulfilledSellPriceByBuy = getOptimalOpeningPrice(lastTradePrice, openingPrice, sellPrice);
-            }
-        }
-
-        openingPrice = finalizeOpeningPrice(lastTradePrice, openingPrice, maxFulfilledSellPriceByBuy,
-                tradeableQuantity);
-
-        return new CustomPair(openingPrice, tradeableQuantity);
-    }
-
-    private int getOptimalOpeningPrice(int lastTradePrice, int currentOpeningPrice, int newPrice) {
-        if (Math.abs(lastTradePrice - currentOpeningPrice) >= Math.abs(lastTradePrice - newPrice)) {
-            return newPrice;
-        }
-        return currentOpeningPrice;
-    }
-
-    private int finalizeOpeningPrice(int lastTradePrice, int openingPrice, int maxFulfilledSellPriceByBuy,
-                                     int tradeableQuantity) {
-        if (tradeableQuantity == 0) {
-            return 0;
-        }
-
-        if (openingPrice >= lastTradePrice && lastTradePrice >= maxFulfilledSellPriceByBuy) {
-            return lastTradePrice;
-        } else if (Math.abs(lastTradePrice - openingPrice) >= Math.abs(lastTradePrice - maxFulfilledSellPriceByBuy)) {
-            return maxFulfilledSellPriceByBuy;
-        }
-
-        return openingPrice;
-    }
-
-    private boolean shouldUpdateNearestSellPrice(int maxFulfilledSellQuantity, int maxTradeableQuantityBuyPrice,
-                                                 int lastTradePrice, int nearestSellPrice, Order sellOrder) {
-        return maxFulfilledSellQuantity < maxTradeableQuantityBuyPrice ||
-                Math.abs(lastTradePrice - nearestSellPrice) > Math.abs(lastTradePrice - sellOrder.getPrice());
+        return indicativeOpeningPrice.get(lastTradePrice);
     }
 }
@@ -0,0 +1,6 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public enum OrderBookMode {
+    PRICE_TREE,
+    TICK_ARRAY
+}
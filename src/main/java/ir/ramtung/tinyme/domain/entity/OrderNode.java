@@ -0,0 +1,16 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import lombok.Getter;
+
+@Getter
+public class OrderNode {
+    private final Order order;
+    OrderQueue queue;
+    OrderNode prev;
+    OrderNode next;
+    int quantity;
+
+    OrderNode(Order order) {
+        this.order = order;
+    }
+}
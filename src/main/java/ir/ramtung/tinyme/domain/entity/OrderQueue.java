@@ -0,0 +1,110 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class OrderQueue implements Iterable<Order> {
+    private OrderNode head;
+    private OrderNode tail;
+    private int size;
+
+    public OrderNode addLast(Order order) {
+        OrderNode node = new OrderNode(order);
+        node.queue = this;
+        node.prev = tail;
+        if (tail == null)
+            head = node;
+        else
+            tail.next = node;
+        tail = node;
+        size++;
+        return node;
+    }
+
+    public OrderNode addFirst(Order order) {
+        OrderNode node = new OrderNode(order);
+        node.queue = this;
+        node.next = head;
+        if (head == null)
+            tail = node;
+        else
+            head.prev = node;
+        head = node;
+        size++;
+        return node;
+    }
+
+    public OrderNode insertBefore(OrderNode successor, Order order) {
+        if (successor == null)
+            return addLast(order);
+        if (successor == head)
+            return addFirst(order);
+        OrderNode node = new OrderNode(order);
+        node.queue = this;
+        node.prev = successor.prev;
+        node.next = successor;
+        successor.prev.next = node;
+        successor.prev = node;
+        size++;
+        return node;
+    }
+
+    public void unlink(OrderNode node) {
+        assert node.queue == this;
+        if (node.prev == null)
+            head = node.next;
+        else
+            node.prev.next = node.next;
+        if (node.next == null)
+            tail = node.prev;
+        else
+            node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        node.queue = null;
+        size--;
+    }
+
+    public OrderNode firstNode() {
+        return head;
+    }
+
+    public OrderNode lastNode() {
+        return tail;
+    }
+
+    public Order first() {
+        if (head == null)
+            throw new NoSuchElementException();
+        return head.getOrder();
+    }
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Order> iterator() {
+        return new Iterator<>() {
+            private OrderNode current = head;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public Order next() {
+                if (current == null)
+                    throw new NoSuchElementException();
+                Order order = current.getOrder();
+                current = current.next;
+                return order;
+            }
+        };
+    }
+}
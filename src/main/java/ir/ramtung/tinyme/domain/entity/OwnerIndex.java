@@ -0,0 +1,50 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+class OwnerIndex {
+    private final HashMap<Broker, LinkedHashSet<OrderNode>> byBroker = new HashMap<>();
+    private final HashMap<Shareholder, LinkedHashSet<OrderNode>> byShareholder = new HashMap<>();
+
+    void add(OrderNode node) {
+        byBroker.computeIfAbsent(node.getOrder().getBroker(), broker -> new LinkedHashSet<>()).add(node);
+        byShareholder.computeIfAbsent(node.getOrder().getShareholder(), shareholder -> new LinkedHashSet<>()).add(node);
+    }
+
+    void remove(OrderNode node) {
+        removeFrom(byBroker, node.getOrder().getBroker(), node);
+        removeFrom(byShareholder, node.getOrder().getShareholder(), node);
+    }
+
+    private static <K> void removeFrom(HashMap<K, LinkedHashSet<OrderNode>> index, K owner, OrderNode node) {
+        LinkedHashSet<OrderNode> nodes = index.get(owner);
+        if (nodes != null && nodes.remove(node) && nodes.isEmpty())
+            index.remove(owner);
+    }
+
+    List<OrderNode> ownedBy(Broker broker, Shareholder shareholder) {
+        assert broker != null || shareholder != null;
+        Set<OrderNode> brokerNodes = broker == null ? null : byBroker.getOrDefault(broker, emptySet());
+        Set<OrderNode> shareholderNodes = shareholder == null ? null : byShareholder.getOrDefault(shareholder, emptySet());
+        if (shareholderNodes == null)
+            return new ArrayList<>(brokerNodes);
+        if (brokerNodes == null)
+            return new ArrayList<>(shareholderNodes);
+        Set<OrderNode> smaller = brokerNodes.size() <= shareholderNodes.size() ? brokerNodes : shareholderNodes;
+        Set<OrderNode> larger = smaller == brokerNodes ? shareholderNodes : brokerNodes;
+        List<OrderNode> nodes = new ArrayList<>();
+        for (OrderNode node : smaller)
+            if (larger.contains(node))
+                nodes.add(node);
+        return nodes;
+    }
+
+    private static LinkedHashSet<OrderNode> emptySet() {
+        return new LinkedHashSet<>(0);
+    }
+}
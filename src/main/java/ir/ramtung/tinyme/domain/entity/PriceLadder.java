@@ -0,0 +1,67 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.TreeMap;
+
+public class PriceLadder {
+    @Getter
+    protected final Side side;
+    protected final TreeMap<Integer, PriceLevel> levels;
+    protected PriceLevel best;
+
+    public PriceLadder(Side side) {
+        this.side = side;
+        this.levels = new TreeMap<>(side == Side.BUY ? Comparator.<Integer>reverseOrder() : Comparator.<Integer>naturalOrder());
+    }
+
+    public PriceLevel best() {
+        return best;
+    }
+
+    public boolean isEmpty() {
+        return best == null;
+    }
+
+    public int size() {
+        return levels.size();
+    }
+
+    public PriceLevel find(int price) {
+        return levels.get(price);
+    }
+
+    public PriceLevel findOrCreate(int price) {
+        PriceLevel level = levels.get(price);
+        if (level == null) {
+            level = new PriceLevel(price);
+            levels.put(price, level);
+            updateBest(level);
+        }
+        return level;
+    }
+
+    public void remove(PriceLevel level) {
+        levels.remove(level.getPrice());
+        if (best == level)
+            best = findBest();
+    }
+
+    public Iterable<PriceLevel> levels() {
+        return levels.values();
+    }
+
+    public boolean isBetter(int price, int other) {
+        return side == Side.BUY ? price > other : price < other;
+    }
+
+    protected void updateBest(PriceLevel level) {
+        if (best == null || isBetter(level.getPrice(), best.getPrice()))
+            best = level;
+    }
+
+    protected PriceLevel findBest() {
+        return levels.isEmpty() ? null : levels.firstEntry().getValue();
+    }
+}
@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import lombok.Getter;
+
+@Getter
+public class PriceLevel extends OrderQueue {
+    private final int price;
+    private int quantity;
+
+    public PriceLevel(int price) {
+        this.price = price;
+    }
+
+    void addQuantity(int amount) {
+        quantity += amount;
+    }
+
+    public int lastOrderQuantity() {
+        return isEmpty() ? 0 : lastNode().quantity;
+    }
+}
@@ -0,0 +1,31 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+final class PriceSort {
+    private PriceSort() {
+    }
+
+    static <T extends Order> List<T> sort(Collection<? extends T> orders, ToIntFunction<? super T> pricePriority) {
+        List<T> sorted = new ArrayList<>(orders.size());
+        for (Side side : Side.values())
+            sortSide(orders, side, pricePriority, sorted);
+        return sorted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Order> void sortSide(Collection<? extends T> orders, Side side,
+                                                   ToIntFunction<? super T> pricePriority, List<T> sorted) {
+        Order[] batch = orders.stream().filter(order -> order.getSide() == side).toArray(Order[]::new);
+        long[] keys = new long[batch.length];
+        for (int i = 0; i < batch.length; i++)
+            keys[i] = (long) pricePriority.applyAsInt((T) batch[i]) << 32 | i;
+        Arrays.sort(keys);
+        for (long key : keys)
+            sorted.add((T) batch[(int) key]);
+    }
+}
@@ -11,8 +11,11 @@ import ir.ramtung.tinyme.messaging.request.MatchingState;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Builder
@@ -29,6 +32,7 @@ public class Security {
     @Builder.Default
     private MatchingState state = MatchingState.CONTINUOUS;
     private int lastTradePrice;
+    private CustomPair publishedOpeningPrice;
 
     public MatchResult newOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, Matcher matcher) {
         if (!shareholderHasEnoughPosition(enterOrderRq, shareholder, enterOrderRq.getQuantity()))
@@ -45,6 +49,21 @@ public class Security {
         removeOrderByOrderId(order, deleteOrderRq.getSide(), deleteOrderRq.getOrderId());
     }
 
+    public List<Order> cancelOrders(Side side, Broker broker, Shareholder shareholder) {
+        List<Order> cancelled = new ArrayList<>();
+        for (Side each : side == null ? Side.values() : new Side[]{side}) {
+            cancelled.addAll(orderBook.removeOrders(each, broker, shareholder));
+            if (state != MatchingState.AUCTION)
+                cancelled.addAll(stopOrderBook.removeOrders(each, broker, shareholder));
+        }
+        Map<Broker, Long> refunds = new HashMap<>();
+        for (Order order : cancelled)
+            if (order.getSide() == Side.BUY)
+                refunds.merge(order.getBroker(), order.getValue(), Long::sum);
+        refunds.forEach(Broker::increaseCreditBy);
+        return cancelled;
+    }
+
     public MatchResult updateOrder(EnterOrderRq updateOrderRq, Matcher matcher) throws InvalidRequestException {
         Order order;
         if (updateOrderRq.getStopPrice() != 0)
@@ -60,26 +79,26 @@ public class Security {
 
         boolean losesPriority = hasLostPriority(order, updateOrderRq);
 
-        if (updateOrderRq.getSide() == Side.BUY)
-            order.getBroker().increaseCreditBy(order.getValue());
-
+        long reservedValue = order.getValue();
         Order originalOrder = order.snapshot();
         order.updateFromRequest(updateOrderRq);
+        syncOrderQuantity(order);
         if (!losesPriority) {
             if (updateOrderRq.getSide() == Side.BUY)
-                order.getBroker().decreaseCreditBy(order.getValue());
+                order.getBroker().increaseCreditBy(reservedValue - order.getValue());
             return MatchResult.executed(null, List.of());
         } else
             order.markAsNew();
 
         removeOrderByOrderId(order, updateOrderRq.getSide(), updateOrderRq.getOrderId());
 
+        if (updateOrderRq.getSide() == Side.BUY)
+            order.holdCredit(reservedValue);
         MatchResult matchResult = matcher.execute(order);
         if (matchResult.outcome() != MatchingOutcome.EXECUTED
                 && matchResult.outcome() != MatchingOutcome.NOT_ACTIVATED) {
+            order.releaseHeldCredit();
             enqueueOrder(originalOrder);
-            if (updateOrderRq.getSide() == Side.BUY)
-                originalOrder.getBroker().decreaseCreditBy(originalOrder.getValue());
         }
         return matchResult;
     }
@@ -108,6 +127,13 @@ public class Security {
             orderBook.removeByOrderId(side, orderId);
     }
 
+    private void syncOrderQuantity(Order order) {
+        if (order instanceof StopLimitOrder)
+            stopOrderBook.syncQuantity(order);
+        else
+            orderBook.syncQuantity(order);
+    }
+
     public void setLastTradePrice(int last_Trade_Price) {
         this.lastTradePrice = last_Trade_Price;
     }
@@ -118,12 +144,21 @@ public class Security {
 
     public void setMatchingState(MatchingState targetState) {
         this.state = targetState;
+        this.publishedOpeningPrice = null;
     }
 
     public CustomPair findOpeningPrice() {
         return orderBook.findOpeningPrice(lastTradePrice);
     }
 
+    public boolean updatePublishedOpeningPrice(CustomPair openingPrice) {
+        if (publishedOpeningPrice != null && publishedOpeningPrice.getFirst() == openingPrice.getFirst()
+                && publishedOpeningPrice.getSecond() == openingPrice.getSecond())
+            return false;
+        publishedOpeningPrice = openingPrice;
+        return true;
+    }
+
     private boolean shareholderHasEnoughPosition(EnterOrderRq req, Shareholder shareholder, int newQuantity) {
         if (req.getSide() == Side.SELL &&
                 !shareholder.hasEnoughPositionsOn(this,
@@ -137,7 +172,7 @@ public class Security {
                 + stopOrderBook.totalSellQuantityByShareholder(shareholder);
     }
 
-    private Order findOrderByOrderId(Side side, long orderId) {
+    public Order findOrderByOrderId(Side side, long orderId) {
         Order order = orderBook.findByOrderId(side, orderId);
         if (order == null)
             order = stopOrderBook.findByOrderId(side, orderId);
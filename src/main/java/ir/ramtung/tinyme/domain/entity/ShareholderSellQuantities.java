@@ -0,0 +1,20 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.HashMap;
+
+public class ShareholderSellQuantities {
+    private final HashMap<Shareholder, Integer> quantities = new HashMap<>();
+
+    public void add(Shareholder shareholder, int amount) {
+        int total = quantities.getOrDefault(shareholder, 0) + amount;
+        assert total >= 0;
+        if (total == 0)
+            quantities.remove(shareholder);
+        else
+            quantities.put(shareholder, total);
+    }
+
+    public int get(Shareholder shareholder) {
+        return quantities.getOrDefault(shareholder, 0);
+    }
+}
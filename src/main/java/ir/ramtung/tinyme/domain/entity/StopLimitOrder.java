@@ -64,7 +64,9 @@ public class StopLimitOrder extends Order {
     }
 
     public Order active() {
-        return new Order(orderId, security, side, quantity, price, broker, shareholder);
+        Order active = new Order(orderId, security, side, quantity, price, broker, shareholder);
+        moveHeldCreditTo(active);
+        return active;
     }
 
     public boolean isTriggered(int lastTradePrice) {
@@ -1,80 +1,177 @@
 package ir.ramtung.tinyme.domain.entity;
 
-import lombok.Getter;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
-@Getter
 public class StopOrderBook {
-    private final LinkedList<StopLimitOrder> buyQueue;
-    private final LinkedList<StopLimitOrder> sellQueue;
+    private final TreeMap<Integer, PriceLevel> buyTriggers;
+    private final TreeMap<Integer, PriceLevel> sellTriggers;
+    private final HashMap<Long, OrderNode> buyIndex;
+    private final HashMap<Long, OrderNode> sellIndex;
+    private final OwnerIndex buyOwners;
+    private final OwnerIndex sellOwners;
+    private final ShareholderSellQuantities sellQuantities;
 
     public StopOrderBook() {
-        buyQueue = new LinkedList<>();
-        sellQueue = new LinkedList<>();
+        buyTriggers = new TreeMap<>(Comparator.<Integer>naturalOrder());
+        sellTriggers = new TreeMap<>(Comparator.<Integer>reverseOrder());
+        buyIndex = new HashMap<>();
+        sellIndex = new HashMap<>();
+        buyOwners = new OwnerIndex();
+        sellOwners = new OwnerIndex();
+        sellQuantities = new ShareholderSellQuantities();
     }
 
     public void enqueue(StopLimitOrder order) {
-        List<StopLimitOrder> queue = getQueue(order.getSide());
-        ListIterator<StopLimitOrder> it = queue.listIterator();
-        while (it.hasNext()) {
-            if (order.queuesBefore(it.next())) {
-                it.previous();
-                break;
+        order.queue();
+        track(getTriggers(order.getSide()).computeIfAbsent(order.getStopPrice(), PriceLevel::new).addLast(order));
+    }
+
+    public void enqueueAll(Collection<? extends StopLimitOrder> orders) {
+        List<StopLimitOrder> sorted = PriceSort.sort(orders,
+                order -> order.getSide() == Side.BUY ? order.getStopPrice() : -order.getStopPrice());
+        PriceLevel level = null;
+        Side side = null;
+        for (StopLimitOrder order : sorted) {
+            if (order.getSide() != side || order.getStopPrice() != level.getPrice()) {
+                side = order.getSide();
+                level = getTriggers(side).computeIfAbsent(order.getStopPrice(), PriceLevel::new);
             }
+            order.queue();
+            track(level.addLast(order));
         }
-        order.queue();
-        it.add(order);
     }
 
-    private LinkedList<StopLimitOrder> getQueue(Side side) {
-        return side == Side.BUY ? buyQueue : sellQueue;
+    public void restore(StopLimitOrder order) {
+        track(getTriggers(order.getSide()).computeIfAbsent(order.getStopPrice(), PriceLevel::new).addLast(order));
+    }
+
+    private void track(OrderNode node) {
+        Order order = node.getOrder();
+        getIndex(order.getSide()).put(order.getOrderId(), node);
+        getOwners(order.getSide()).add(node);
+        node.quantity = order.getTotalQuantity();
+        adjustQuantity(node, node.quantity);
+    }
+
+    private void unlink(Side side, OrderNode node) {
+        adjustQuantity(node, -node.quantity);
+        getOwners(side).remove(node);
+        PriceLevel level = (PriceLevel) node.getQueue();
+        level.unlink(node);
+        if (level.isEmpty())
+            getTriggers(side).remove(level.getPrice());
+    }
+
+    private void adjustQuantity(OrderNode node, int amount) {
+        Order order = node.getOrder();
+        ((PriceLevel) node.getQueue()).addQuantity(amount);
+        if (order.getSide() == Side.SELL)
+            sellQuantities.add(order.getShareholder(), amount);
+    }
+
+    public void syncQuantity(Order order) {
+        OrderNode node = getIndex(order.getSide()).get(order.getOrderId());
+        if (node == null || node.getOrder() != order)
+            return;
+        int quantity = order.getTotalQuantity();
+        adjustQuantity(node, quantity - node.quantity);
+        node.quantity = quantity;
+    }
+
+    private TreeMap<Integer, PriceLevel> getTriggers(Side side) {
+        return side == Side.BUY ? buyTriggers : sellTriggers;
+    }
+
+    private HashMap<Long, OrderNode> getIndex(Side side) {
+        return side == Side.BUY ? buyIndex : sellIndex;
+    }
+
+    private OwnerIndex getOwners(Side side) {
+        return side == Side.BUY ? buyOwners : sellOwners;
+    }
+
+    public LinkedList<StopLimitOrder> getBuyQueue() {
+        return toList(buyTriggers);
+    }
+
+    public LinkedList<StopLimitOrder> getSellQueue() {
+        return toList(sellTriggers);
+    }
+
+    private LinkedList<StopLimitOrder> toList(NavigableMap<Integer, PriceLevel> triggers) {
+        LinkedList<StopLimitOrder> orders = new LinkedList<>();
+        for (PriceLevel level : triggers.values())
+            for (Order order : level)
+                orders.add((StopLimitOrder) order);
+        return orders;
     }
 
     public Order findByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        for (Order order : queue) {
-            if (order.getOrderId() == orderId)
-                return order;
+        OrderNode node = getIndex(side).get(orderId);
+        return node == null ? null : node.getOrder();
+    }
+
+    public List<StopLimitOrder> removeOrders(Side side, Broker broker, Shareholder shareholder) {
+        List<OrderNode> nodes;
+        if (broker == null && shareholder == null) {
+            nodes = new ArrayList<>(getIndex(side).size());
+            for (PriceLevel level : getTriggers(side).values())
+                for (OrderNode node = level.firstNode(); node != null; node = node.getNext())
+                    nodes.add(node);
+        } else
+            nodes = getOwners(side).ownedBy(broker, shareholder);
+        List<StopLimitOrder> removed = new ArrayList<>(nodes.size());
+        for (OrderNode node : nodes) {
+            getIndex(side).remove(node.getOrder().getOrderId());
+            unlink(side, node);
+            removed.add((StopLimitOrder) node.getOrder());
         }
-        return null;
+        return removed;
     }
 
     public boolean removeByOrderId(Side side, long orderId) {
-        var queue = getQueue(side);
-        var it = queue.listIterator();
-        while (it.hasNext()) {
-            if (it.next().getOrderId() == orderId) {
-                it.remove();
-                return true;
-            }
-        }
-        return false;
+        OrderNode node = getIndex(side).remove(orderId);
+        if (node == null)
+            return false;
+        unlink(side, node);
+        return true;
     }
 
     public LinkedList<StopLimitOrder> findTriggeredOrders(int lastTradePrice, Side side) {
         LinkedList<StopLimitOrder> activatableOrders = new LinkedList<StopLimitOrder>();
-        LinkedList<StopLimitOrder> queue = getQueue(side);
-        Iterator<StopLimitOrder> iterator = queue.iterator();
-        while (iterator.hasNext()) {
-            StopLimitOrder order = iterator.next();
-            if (order.isTriggered(lastTradePrice)) {
-                activatableOrders.add(order);
-                iterator.remove();
-            } else {
-                break;
+        Iterator<PriceLevel> triggered = getTriggers(side).headMap(lastTradePrice, true).values().iterator();
+        while (triggered.hasNext()) {
+            for (OrderNode node = triggered.next().firstNode(); node != null; node = node.getNext()) {
+                activatableOrders.add((StopLimitOrder) node.getOrder());
+                getIndex(side).remove(node.getOrder().getOrderId());
+                getOwners(side).remove(node);
+                adjustQuantity(node, -node.quantity);
             }
+            triggered.remove();
         }
         return activatableOrders;
     }
 
     public int totalSellQuantityByShareholder(Shareholder shareholder) {
-        return sellQueue.stream()
-                .filter(order -> order.getShareholder().equals(shareholder))
-                .mapToInt(Order::getTotalQuantity)
-                .sum();
+        int total = sellQuantities.get(shareholder);
+        assert total == scanSellQuantityByShareholder(shareholder);
+        return total;
+    }
+
+    private int scanSellQuantityByShareholder(Shareholder shareholder) {
+        int total = 0;
+        for (PriceLevel level : sellTriggers.values())
+            for (Order order : level)
+                if (order.getShareholder().equals(shareholder))
+                    total += order.getTotalQuantity();
+        return total;
     }
 }
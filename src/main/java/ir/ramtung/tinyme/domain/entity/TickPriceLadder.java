@@ -0,0 +1,189 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class TickPriceLadder extends PriceLadder {
+    public static final int DEFAULT_BAND_LEVELS = 1024;
+
+    private final int tickSize;
+    private PriceLevel[] band;
+    private int bandSize;
+    private int base;
+    private boolean centered;
+
+    public TickPriceLadder(Side side, int tickSize, int bandLevels) {
+        super(side);
+        if (tickSize <= 0 || bandLevels <= 0)
+            throw new IllegalArgumentException("Tick size and band levels must be positive");
+        this.tickSize = tickSize;
+        this.band = new PriceLevel[bandLevels];
+    }
+
+    public TickPriceLadder(Side side, int tickSize) {
+        this(side, tickSize, DEFAULT_BAND_LEVELS);
+    }
+
+    public boolean isInBand(int price) {
+        return indexOf(price) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return bandSize + super.size();
+    }
+
+    @Override
+    public PriceLevel find(int price) {
+        int index = indexOf(price);
+        return index < 0 ? super.find(price) : band[index];
+    }
+
+    @Override
+    public PriceLevel findOrCreate(int price) {
+        if (!centered)
+            recenter(price);
+        int index = indexOf(price);
+        if (index < 0) {
+            PriceLevel level = super.findOrCreate(price);
+            if (best == level)
+                recenter(price);
+            return level;
+        }
+        PriceLevel level = band[index];
+        if (level == null) {
+            level = new PriceLevel(price);
+            band[index] = level;
+            bandSize++;
+            updateBest(level);
+        }
+        return level;
+    }
+
+    @Override
+    public void remove(PriceLevel level) {
+        int index = indexOf(level.getPrice());
+        if (index < 0 || band[index] != level)
+            super.remove(level);
+        else {
+            band[index] = null;
+            bandSize--;
+            if (best == level)
+                best = betterOf(scanBand(index), super.findBest());
+        }
+
+        if (best == null)
+            centered = false;
+        else if (!isInBand(best.getPrice()))
+            recenter(best.getPrice());
+    }
+
+    @Override
+    public Iterable<PriceLevel> levels() {
+        return LevelIterator::new;
+    }
+
+    @Override
+    protected PriceLevel findBest() {
+        return betterOf(scanBand(side == Side.BUY ? band.length - 1 : 0), super.findBest());
+    }
+
+    private int indexOf(int price) {
+        if (!centered)
+            return -1;
+        long offset = (long) price - base;
+        if (offset < 0 || offset % tickSize != 0)
+            return -1;
+        long index = offset / tickSize;
+        return index < band.length ? (int) index : -1;
+    }
+
+    private void recenter(int price) {
+        PriceLevel[] previous = band;
+        band = new PriceLevel[previous.length];
+        bandSize = 0;
+        base = Math.floorDiv(price, tickSize) * tickSize - (band.length / 2) * tickSize;
+        centered = true;
+
+        for (PriceLevel level : previous) {
+            if (level == null)
+                continue;
+            int index = indexOf(level.getPrice());
+            if (index < 0)
+                levels.put(level.getPrice(), level);
+            else {
+                band[index] = level;
+                bandSize++;
+            }
+        }
+
+        Iterator<PriceLevel> it = levels.values().iterator();
+        while (it.hasNext()) {
+            PriceLevel level = it.next();
+            int index = indexOf(level.getPrice());
+            if (index >= 0) {
+                band[index] = level;
+                bandSize++;
+                it.remove();
+            }
+        }
+    }
+
+    private PriceLevel scanBand(int from) {
+        int step = side == Side.BUY ? -1 : 1;
+        for (int i = from; i >= 0 && i < band.length; i += step) {
+            if (band[i] != null)
+                return band[i];
+        }
+        return null;
+    }
+
+    private PriceLevel betterOf(PriceLevel first, PriceLevel second) {
+        if (first == null)
+            return second;
+        if (second == null)
+            return first;
+        return isBetter(second.getPrice(), first.getPrice()) ? second : first;
+    }
+
+    private class LevelIterator implements Iterator<PriceLevel> {
+        private final Iterator<PriceLevel> treeIterator = levels.values().iterator();
+        private final int step = side == Side.BUY ? -1 : 1;
+        private int bandIndex = side == Side.BUY ? band.length - 1 : 0;
+        private PriceLevel nextTreeLevel = nextTreeLevel();
+        private PriceLevel nextBandLevel = nextBandLevel();
+
+        @Override
+        public boolean hasNext() {
+            return nextTreeLevel != null || nextBandLevel != null;
+        }
+
+        @Override
+        public PriceLevel next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            PriceLevel level = betterOf(nextBandLevel, nextTreeLevel);
+            if (level == nextBandLevel)
+                nextBandLevel = nextBandLevel();
+            else
+                nextTreeLevel = nextTreeLevel();
+            return level;
+        }
+
+        private PriceLevel nextTreeLevel() {
+            return treeIterator.hasNext() ? treeIterator.next() : null;
+        }
+
+        private PriceLevel nextBandLevel() {
+            if (!centered)
+                return null;
+            while (bandIndex >= 0 && bandIndex < band.length) {
+                PriceLevel level = band[bandIndex];
+                bandIndex += step;
+                if (level != null)
+                    return level;
+            }
+            return null;
+        }
+    }
+}
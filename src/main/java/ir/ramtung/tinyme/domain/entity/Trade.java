@@ -1,34 +1,54 @@
 package ir.ramtung.tinyme.domain.entity;
 
-import lombok.Builder;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
-@Builder
 @Getter
 @EqualsAndHashCode
 @ToString
 public class Trade {
-    Security security;
-    private int price;
-    private int quantity;
-    private Order buy;
-    private Order sell;
+    private final Security security;
+    private final int price;
+    private final int quantity;
+    private final long buyOrderId;
+    private final long sellOrderId;
+    private final Broker buyBroker;
+    private final Broker sellBroker;
+    private final Shareholder buyShareholder;
+    private final Shareholder sellShareholder;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Order buy;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Order sell;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final int buyQuantityBefore;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final int sellQuantityBefore;
 
     public Trade(Security security, int price, int quantity, Order order1, Order order2) {
         this.security = security;
         this.price = price;
         this.quantity = quantity;
-        Order snapshot1 = order1.snapshot();
-        Order snapshot2 = order2.snapshot();
-        if (order1.getSide() == Side.BUY) {
-            this.buy = snapshot1;
-            this.sell = snapshot2;
-        } else {
-            this.buy = snapshot2;
-            this.sell = snapshot1;
-        }
+        this.buy = order1.getSide() == Side.BUY ? order1 : order2;
+        this.sell = order1.getSide() == Side.BUY ? order2 : order1;
+        this.buyOrderId = buy.getOrderId();
+        this.sellOrderId = sell.getOrderId();
+        this.buyBroker = buy.getBroker();
+        this.sellBroker = sell.getBroker();
+        this.buyShareholder = buy.getShareholder();
+        this.sellShareholder = sell.getShareholder();
+        this.buyQuantityBefore = buy.getTotalQuantity();
+        this.sellQuantityBefore = sell.getTotalQuantity();
     }
 
     public long getTradedValue() {
@@ -36,15 +56,28 @@ public class Trade {
     }
 
     public void increaseSellersCredit() {
-        sell.getBroker().increaseCreditBy(getTradedValue());
+        sellBroker.increaseCreditBy(getTradedValue());
     }
 
     public void decreaseBuyersCredit() {
-        buy.getBroker().decreaseCreditBy(getTradedValue());
+        buyBroker.decreaseCreditBy(getTradedValue());
+    }
+
+    public boolean tryReserveBuyersCredit() {
+        return buy.tryReserveCredit(getTradedValue());
     }
 
     public boolean buyerHasEnoughCredit() {
-        return buy.getBroker().hasEnoughCredit(getTradedValue());
+        return buyBroker.hasEnoughCredit(getTradedValue());
     }
 
+    public void restoreBuyOrder() {
+        buy.restoreTotalQuantity(buyQuantityBefore);
+        security.getOrderBook().restoreBuyOrder(buy);
+    }
+
+    public void restoreSellOrder() {
+        sell.restoreTotalQuantity(sellQuantityBefore);
+        security.getOrderBook().restoreSellOrder(sell);
+    }
 }
@@ -0,0 +1,28 @@
+package ir.ramtung.tinyme.domain.service;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.AuctionMatch")
+@Label("Auction Match")
+@Category({"TinyME", "Matching"})
+@Description("Opening of an auction at the computed opening price")
+@StackTrace(false)
+class AuctionMatchEvent extends Event {
+    @Label("ISIN")
+    String isin;
+
+    @Label("Opening Price")
+    int openingPrice;
+
+    @Label("Buy Orders")
+    int buyOrders;
+
+    @Label("Sell Orders")
+    int sellOrders;
+
+    @Label("Trades")
+    int trades;
+
+    @Label("Traded Quantity")
+    long tradedQuantity;
+}
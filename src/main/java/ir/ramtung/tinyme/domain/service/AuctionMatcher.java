@@ -1,6 +1,8 @@
 package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.messaging.LatencyMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.LinkedList;
@@ -9,11 +11,25 @@ import java.util.ListIterator;
 
 @Service
 public class AuctionMatcher extends Matcher {
+    @Autowired
+    public AuctionMatcher(LatencyMonitor latencyMonitor) {
+        super(latencyMonitor);
+    }
+
+    public AuctionMatcher() {
+        this(null);
+    }
+
     public MatchResult match(Order order) {
         return MatchResult.executed(order, new LinkedList<>());
     }
 
     public MatchResult match(LinkedList<Order> buyOrders, LinkedList<Order> sellOrders, int openingPrice) {
+        AuctionMatchEvent event = new AuctionMatchEvent();
+        event.begin();
+        Order firstOrder = buyOrders.isEmpty() ? sellOrders.peekFirst() : buyOrders.getFirst();
+        int buyCount = buyOrders.size();
+        int sellCount = sellOrders.size();
         LinkedList<Trade> trades = new LinkedList<>();
 
         while (!buyOrders.isEmpty() && !sellOrders.isEmpty()) {
@@ -27,6 +43,16 @@ public class AuctionMatcher extends Matcher {
         }
 
         updatePositionsFromTrades(trades);
+        event.end();
+        if (event.shouldCommit()) {
+            event.isin = firstOrder == null ? null : firstOrder.getSecurity().getIsin();
+            event.openingPrice = openingPrice;
+            event.buyOrders = buyCount;
+            event.sellOrders = sellCount;
+            event.trades = trades.size();
+            event.tradedQuantity = trades.stream().mapToLong(Trade::getQuantity).sum();
+            event.commit();
+        }
         return MatchResult.executed(null, trades);
     }
 
@@ -64,21 +90,18 @@ public class AuctionMatcher extends Matcher {
             handleOrderCompletion(buyOrder, buyOrders);
             handleOrderCompletion(sellOrder, sellOrders);
         } else if (buyOrder.getQuantity() > sellOrder.getQuantity()) {
-            buyOrder.decreaseQuantity(tradeQuantity);
+            buyOrder.getSecurity().getOrderBook().decreaseQuantity(buyOrder, tradeQuantity);
             handleOrderCompletion(sellOrder, sellOrders);
         } else {
-            sellOrder.decreaseQuantity(tradeQuantity);
+            sellOrder.getSecurity().getOrderBook().decreaseQuantity(sellOrder, tradeQuantity);
             handleOrderCompletion(buyOrder, buyOrders);
         }
     }
 
     public MatchResult addOrderToOrderBook(Order remainder, LinkedList<Trade> trades, int previousQuantity) {
-        if (remainder.getSide() == Side.BUY && !remainder.getBroker().hasEnoughCredit(remainder.getValue()))
+        if (remainder.getSide() == Side.BUY && !remainder.tryReserveCredit(remainder.getValue()))
             return MatchResult.notEnoughCredit();
 
-        if (remainder.getSide() == Side.BUY)
-            remainder.getBroker().decreaseCreditBy(remainder.getValue());
-
         remainder.getSecurity().enqueueOrder(remainder);
         return MatchResult.executed(remainder, trades);
     }
@@ -2,6 +2,7 @@ package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
 import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.LatencyMonitor;
 import ir.ramtung.tinyme.messaging.event.SecurirtyStateChangeRejectedEvent;
 import ir.ramtung.tinyme.messaging.event.SecurityStateChangedEvent;
 import ir.ramtung.tinyme.messaging.event.TradeEvent;
@@ -10,19 +11,28 @@ import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.MatchingState;
 import ir.ramtung.tinyme.messaging.request.Request;
 import ir.ramtung.tinyme.repository.SecurityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.LinkedList;
 
 @Service
 public class ChangeMatchingStateHandler extends ReqHandler {
+    @Autowired
     public ChangeMatchingStateHandler(SecurityRepository securityRepository, EventPublisher eventPublisher,
-            ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher, RequestControl requestControl) {
+            ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher, RequestControl requestControl,
+            LatencyMonitor latencyMonitor) {
         this.securityRepository = securityRepository;
         this.eventPublisher = eventPublisher;
         this.continuousMatcher = continuousMatcher;
         this.auctionMatcher = auctionMatcher;
         this.requestControl = requestControl;
+        this.latencyMonitor = latencyMonitor != null && latencyMonitor.isEnabled() ? latencyMonitor : null;
+    }
+
+    public ChangeMatchingStateHandler(SecurityRepository securityRepository, EventPublisher eventPublisher,
+            ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher, RequestControl requestControl) {
+        this(securityRepository, eventPublisher, continuousMatcher, auctionMatcher, requestControl, null);
     }
 
     @Override
@@ -62,7 +72,7 @@ public class ChangeMatchingStateHandler extends ReqHandler {
 
         for (Trade trade : matchResult.trades())
             eventPublisher.publish(new TradeEvent(trade.getSecurity().getIsin(), trade.getPrice(), trade.getQuantity(),
-                    trade.getBuy().getOrderId(), trade.getSell().getOrderId()));
+                    trade.getBuyOrderId(), trade.getSellOrderId()));
     }
 
     public void activeStopLimitOrders(MatchingState state, Security security, int openingPrice) {
@@ -0,0 +1,31 @@
+package ir.ramtung.tinyme.domain.service;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.ContinuousMatch")
+@Label("Continuous Match")
+@Category({"TinyME", "Matching"})
+@Description("Matching of one incoming order against the opposite side of the order book")
+@StackTrace(false)
+class ContinuousMatchEvent extends Event {
+    @Label("ISIN")
+    String isin;
+
+    @Label("Order ID")
+    long orderId;
+
+    @Label("Side")
+    String side;
+
+    @Label("Requested Quantity")
+    int requestedQuantity;
+
+    @Label("Trades")
+    int trades;
+
+    @Label("Levels Swept")
+    int levelsSwept;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -1,6 +1,8 @@
 package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.messaging.LatencyMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.LinkedList;
@@ -8,78 +10,122 @@ import java.util.ListIterator;
 
 @Service
 public class ContinuousMatcher extends Matcher {
+    @Autowired
+    public ContinuousMatcher(LatencyMonitor latencyMonitor) {
+        super(latencyMonitor);
+    }
+
+    public ContinuousMatcher() {
+        this(null);
+    }
+
     public MatchResult match(Order newOrder) {
+        ContinuousMatchEvent event = new ContinuousMatchEvent();
+        event.begin();
         OrderBook orderBook = newOrder.getSecurity().getOrderBook();
         LinkedList<Trade> trades = new LinkedList<>();
 
         if (newOrder instanceof StopLimitOrder stopLimitOrder) {
-            if (stopLimitOrder.isTriggered(stopLimitOrder.getSecurity().getLastTradePrice()))
+            int lastTradePrice = stopLimitOrder.getSecurity().getLastTradePrice();
+            if (stopLimitOrder.isTriggered(lastTradePrice)) {
                 newOrder = stopLimitOrder.active();
-            else
+                commitActivation(new StopOrderActivationEvent(), stopLimitOrder, lastTradePrice, 0, 0);
+            } else
                 return MatchResult.notActivated(stopLimitOrder);
         }
 
+        int requestedQuantity = newOrder.getQuantity();
+        int levelsSwept = 0;
+        int levelPrice = 0;
         while (orderBook.hasOrderOfType(newOrder.getSide().opposite()) && newOrder.getQuantity() > 0) {
             Order matchingOrder = orderBook.matchWithFirst(newOrder);
             if (matchingOrder == null)
                 break;
+            if (levelsSwept == 0 || matchingOrder.getPrice() != levelPrice) {
+                levelsSwept++;
+                levelPrice = matchingOrder.getPrice();
+            }
 
             Trade trade = createTrade(newOrder, matchingOrder, matchingOrder.getPrice());
             if (newOrder.getSide() == Side.BUY) {
-                if (trade.buyerHasEnoughCredit())
-                    trade.decreaseBuyersCredit();
-                else {
-                    rollbackTrades(newOrder, trades);
+                if (!trade.tryReserveBuyersCredit()) {
+                    rollbackTrades(newOrder, trades, MatchingOutcome.NOT_ENOUGH_CREDIT);
+                    commitMatch(event, newOrder, requestedQuantity, trades.size(), levelsSwept,
+                            MatchingOutcome.NOT_ENOUGH_CREDIT);
                     return MatchResult.notEnoughCredit();
                 }
             }
 
-            trade.increaseSellersCredit();
             trades.add(trade);
             updateOrdersAfterTrade(newOrder, matchingOrder, matchingOrder.getQuantity(), orderBook);
         }
+        commitMatch(event, newOrder, requestedQuantity, trades.size(), levelsSwept, MatchingOutcome.EXECUTED);
         return MatchResult.executed(newOrder, trades);
     }
 
+    private static void commitMatch(ContinuousMatchEvent event, Order order, int requestedQuantity, int trades,
+                                    int levelsSwept, MatchingOutcome outcome) {
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.isin = order.getSecurity().getIsin();
+        event.orderId = order.getOrderId();
+        event.side = order.getSide().name();
+        event.requestedQuantity = requestedQuantity;
+        event.trades = trades;
+        event.levelsSwept = levelsSwept;
+        event.outcome = outcome.name();
+        event.commit();
+    }
+
     private void rollbackBuy(Order newOrder, LinkedList<Trade> trades) {
-        newOrder.getBroker().increaseCreditBy(trades.stream().mapToLong(Trade::getTradedValue).sum());
-        trades.forEach(trade -> trade.getSell().getBroker().decreaseCreditBy(trade.getTradedValue()));
+        newOrder.refundCredit(trades.stream().mapToLong(Trade::getTradedValue).sum());
         ListIterator<Trade> it = trades.listIterator(trades.size());
         while (it.hasPrevious()) {
-            newOrder.getSecurity().getOrderBook().restoreSellOrder(it.previous().getSell());
+            it.previous().restoreSellOrder();
         }
     }
 
     private void rollbackSell(Order newOrder, LinkedList<Trade> trades) {
-        newOrder.getBroker().decreaseCreditBy(trades.stream().mapToLong(Trade::getTradedValue).sum());
-        trades.forEach(trade -> trade.getBuy().getBroker().increaseCreditBy(trade.getTradedValue()));
+        trades.forEach(trade -> trade.getBuyBroker().increaseCreditBy(trade.getTradedValue()));
         ListIterator<Trade> it = trades.listIterator(trades.size());
         while (it.hasPrevious()) {
-            newOrder.getSecurity().getOrderBook().restoreBuyOrder(it.previous().getBuy());
+            it.previous().restoreBuyOrder();
         }
     }
 
-    private void rollbackTrades(Order newOrder, LinkedList<Trade> trades) {
+    private void rollbackTrades(Order newOrder, LinkedList<Trade> trades, MatchingOutcome reason) {
+        TradeRollbackEvent event = new TradeRollbackEvent();
+        event.begin();
         if (newOrder.getSide() == Side.BUY)
             rollbackBuy(newOrder, trades);
         else
             rollbackSell(newOrder, trades);
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.isin = newOrder.getSecurity().getIsin();
+        event.orderId = newOrder.getOrderId();
+        event.side = newOrder.getSide().name();
+        event.trades = trades.size();
+        event.value = trades.stream().mapToLong(Trade::getTradedValue).sum();
+        event.reason = reason.name();
+        event.commit();
     }
 
     public MatchResult addOrderToOrderBook(Order remainder, LinkedList<Trade> trades, int previousQuantity) {
         if (remainder.getQuantity() > 0) {
             if (!remainder.isMinimumQuantityExecuted() &&
                     (remainder.getQuantity() > (previousQuantity - remainder.getMinimumExecutionQuantity()))) {
-                rollbackTrades(remainder, trades);
+                rollbackTrades(remainder, trades, MatchingOutcome.MINIMUM_NOT_MATCHED);
                 return MatchResult.minimumNotMatched();
             }
 
             if (remainder.getSide() == Side.BUY) {
-                if (!remainder.getBroker().hasEnoughCredit(remainder.getValue())) {
-                    rollbackTrades(remainder, trades);
+                if (!remainder.tryReserveCredit(remainder.getValue())) {
+                    rollbackTrades(remainder, trades, MatchingOutcome.NOT_ENOUGH_CREDIT);
                     return MatchResult.notEnoughCredit();
                 }
-                remainder.getBroker().decreaseCreditBy(remainder.getValue());
             }
             remainder.getSecurity().enqueueOrder(remainder);
         }
@@ -97,7 +143,7 @@ public class ContinuousMatcher extends Matcher {
             orderBook.removeFirst(matchingOrder.getSide());
             handleIcebergOrder(matchingOrder);
         } else {
-            matchingOrder.decreaseQuantity(newOrder.getQuantity());
+            orderBook.decreaseQuantity(matchingOrder, newOrder.getQuantity());
             newOrder.makeQuantityZero();
         }
     }
@@ -2,6 +2,7 @@ package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
 import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.LatencyMonitor;
 import ir.ramtung.tinyme.messaging.TradeDTO;
 import ir.ramtung.tinyme.messaging.event.OrderActivatedEvent;
 import ir.ramtung.tinyme.messaging.event.OrderExecutedEvent;
@@ -11,11 +12,26 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public abstract class Matcher {
+    protected final LatencyMonitor latencyMonitor;
+
+    protected Matcher(LatencyMonitor latencyMonitor) {
+        this.latencyMonitor = latencyMonitor != null && latencyMonitor.isEnabled() ? latencyMonitor : null;
+    }
+
     public abstract MatchResult match(Order newOrder);
 
     public abstract MatchResult addOrderToOrderBook(Order remainder, LinkedList<Trade> trades, int previousQuantity);
 
     public MatchResult execute(Order order) {
+        if (latencyMonitor == null)
+            return executeOrder(order);
+        long started = latencyMonitor.startStage();
+        MatchResult result = executeOrder(order);
+        latencyMonitor.record(LatencyMonitor.Stage.MATCH, started);
+        return result;
+    }
+
+    private MatchResult executeOrder(Order order) {
         int previousQuantity = order.getQuantity();
         MatchResult result = match(order);
         if (result.outcome() == MatchingOutcome.NOT_ENOUGH_CREDIT)
@@ -24,9 +40,13 @@ public abstract class Matcher {
         MatchResult enqueueRemainderResult = addOrderToOrderBook(result.remainder(), result.trades(), previousQuantity);
         if (result.outcome() != MatchingOutcome.NOT_ACTIVATED || enqueueRemainderResult.outcome() != MatchingOutcome.EXECUTED)
             result = enqueueRemainderResult;
-        if (result.outcome() != MatchingOutcome.EXECUTED)
+        if (result.outcome() != MatchingOutcome.EXECUTED && result.outcome() != MatchingOutcome.NOT_ACTIVATED)
             return result;
 
+        Order remainder = result.remainder();
+        if (remainder != null)
+            remainder.getBroker().increaseCreditBy(remainder.releaseHeldCredit());
+        result.trades().forEach(Trade::increaseSellersCredit);
         updatePositionsFromTrades(result.trades());
         return result;
     }
@@ -41,9 +61,20 @@ public abstract class Matcher {
     }
 
     public void executeTriggeredStopLimitOrders(Security security, EventPublisher eventPublisher, int lastTradePrice) {
+        if (latencyMonitor == null) {
+            executeTriggeredOrders(security, eventPublisher, lastTradePrice);
+            return;
+        }
+        long started = latencyMonitor.startStage();
+        executeTriggeredOrders(security, eventPublisher, lastTradePrice);
+        latencyMonitor.record(LatencyMonitor.Stage.STOP_CASCADE, started);
+    }
+
+    private void executeTriggeredOrders(Security security, EventPublisher eventPublisher, int lastTradePrice) {
         LinkedList<StopLimitOrder> triggeredOrders = new LinkedList<StopLimitOrder>();
 
         MatchResult matchResult;
+        int cascadePosition = 0;
         while (true) {
 
             triggeredOrders.addAll(security.findTriggeredOrders(lastTradePrice));
@@ -52,26 +83,47 @@ public abstract class Matcher {
             if (triggeredOrders.isEmpty())
                 return;
             StopLimitOrder stopOrder = triggeredOrders.removeFirst();
+            StopOrderActivationEvent event = new StopOrderActivationEvent();
+            event.begin();
+            int triggerPrice = lastTradePrice;
             Order newOrder = stopOrder.active();
             if (newOrder.getSide() == Side.BUY)
-                newOrder.getBroker().increaseCreditBy(newOrder.getValue());
+                newOrder.holdCredit(newOrder.getValue());
 
             eventPublisher.publish(new OrderActivatedEvent(stopOrder.getRequestId(), newOrder.getOrderId()));
             matchResult = execute(newOrder);
+            newOrder.getBroker().increaseCreditBy(newOrder.releaseHeldCredit());
 
             if (!matchResult.trades().isEmpty()) {
                 lastTradePrice = matchResult.trades().getLast().getPrice();
                 eventPublisher.publish(new OrderExecutedEvent(stopOrder.getOrderId(), newOrder.getOrderId(),
                         matchResult.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
             }
+            commitActivation(event, stopOrder, triggerPrice, ++cascadePosition,
+                    matchResult.trades().size());
         }
     }
 
+    static void commitActivation(StopOrderActivationEvent event, StopLimitOrder stopOrder,
+                                 int lastTradePrice, int cascadePosition, int trades) {
+        event.end();
+        if (!event.shouldCommit())
+            return;
+        event.isin = stopOrder.getSecurity().getIsin();
+        event.orderId = stopOrder.getOrderId();
+        event.requestId = stopOrder.getRequestId();
+        event.stopPrice = stopOrder.getStopPrice();
+        event.lastTradePrice = lastTradePrice;
+        event.cascadePosition = cascadePosition;
+        event.trades = trades;
+        event.commit();
+    }
+
     public void updatePositionsFromTrades(List<Trade> trades) {
         if (!trades.isEmpty()) {
             for (Trade trade : trades) {
-                trade.getBuy().getShareholder().incPosition(trade.getSecurity(), trade.getQuantity());
-                trade.getSell().getShareholder().decPosition(trade.getSecurity(), trade.getQuantity());
+                trade.getBuyShareholder().incPosition(trade.getSecurity(), trade.getQuantity());
+                trade.getSellShareholder().decPosition(trade.getSecurity(), trade.getQuantity());
             }
         }
     }
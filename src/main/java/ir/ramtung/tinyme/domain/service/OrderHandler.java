@@ -1,17 +1,21 @@
 package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.messaging.BatchLegResult;
 import ir.ramtung.tinyme.messaging.Message;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
 import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.LatencyMonitor;
 import ir.ramtung.tinyme.messaging.TradeDTO;
 import ir.ramtung.tinyme.messaging.event.*;
 import ir.ramtung.tinyme.messaging.request.*;
 import ir.ramtung.tinyme.repository.BrokerRepository;
 import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,10 +26,11 @@ public class OrderHandler extends ReqHandler {
     ShareholderRepository shareholderRepository;
     SecurityRepository securityRepository;
 
+    @Autowired
     public OrderHandler(SecurityRepository securityRepository, BrokerRepository brokerRepository,
                         ShareholderRepository shareholderRepository,
                         EventPublisher eventPublisher, ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher,
-                        RequestControl requestControl) {
+                        RequestControl requestControl, LatencyMonitor latencyMonitor) {
         this.securityRepository = securityRepository;
         this.brokerRepository = brokerRepository;
         this.shareholderRepository = shareholderRepository;
@@ -33,10 +38,27 @@ public class OrderHandler extends ReqHandler {
         this.continuousMatcher = continuousMatcher;
         this.auctionMatcher = auctionMatcher;
         this.requestControl = requestControl;
+        this.latencyMonitor = latencyMonitor != null && latencyMonitor.isEnabled() ? latencyMonitor : null;
+    }
+
+    public OrderHandler(SecurityRepository securityRepository, BrokerRepository brokerRepository,
+                        ShareholderRepository shareholderRepository,
+                        EventPublisher eventPublisher, ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher,
+                        RequestControl requestControl) {
+        this(securityRepository, brokerRepository, shareholderRepository, eventPublisher, continuousMatcher,
+                auctionMatcher, requestControl, null);
     }
 
     @Override
     protected void handleInvalidRequest(Request request, InvalidRequestException ex) {
+        if (request instanceof BatchEnterOrderRq batchRq) {
+            eventPublisher.publish(new OrderRejectedEvent(batchRq.getRequestId(), 0, ex.getReasons()));
+            return;
+        }
+        if (request instanceof MassCancelRq massCancelRq) {
+            eventPublisher.publish(new OrderRejectedEvent(massCancelRq.getRequestId(), 0, ex.getReasons()));
+            return;
+        }
         eventPublisher.publish(new OrderRejectedEvent(((OrderRequest) request).getRequestId(), ((OrderRequest) request).getOrderId(), ex.getReasons()));
     }
 
@@ -46,20 +68,104 @@ public class OrderHandler extends ReqHandler {
         Broker broker = brokerRepository.findBrokerById(enterOrderRq.getBrokerId());
         Shareholder shareholder = shareholderRepository.findShareholderById(enterOrderRq.getShareholderId());
 
-        Matcher matcher = (security.getState() == MatchingState.AUCTION) ? auctionMatcher : continuousMatcher;
+        Matcher matcher = matcherOf(security);
+        MatchResult matchResult = enterOrder(enterOrderRq, security, broker, shareholder, matcher);
+
+        publishEnterOrderReqEvents(matchResult, enterOrderRq);
+        executeTriggeredStopLimitOrders(matchResult, security, matcher);
+
+        publishOpenPriceEvent(security);
+    }
+
+    @Override
+    protected void processRequest(BatchEnterOrderRq batchRq) {
+        Security security = securityRepository.findSecurityByIsin(batchRq.getSecurityIsin());
+        Broker broker = brokerRepository.findBrokerById(batchRq.getBrokerId());
+        List<BatchLegResult> results = new ArrayList<>(batchRq.getDeleteLegs().size() + batchRq.getEnterLegs().size());
+        for (DeleteOrderRq leg : batchRq.getDeleteLegs())
+            results.add(deleteLeg(leg, security, broker));
+        for (EnterOrderRq leg : batchRq.getEnterLegs())
+            results.add(enterLeg(leg, security, broker));
+        eventPublisher.publish(new BatchOrderResultEvent(batchRq.getRequestId(), results));
+        publishOpenPriceEvent(security);
+    }
+
+    @Override
+    protected void processRequest(MassCancelRq massCancelRq) {
+        Security security = securityRepository.findSecurityByIsin(massCancelRq.getSecurityIsin());
+        Broker broker = massCancelRq.getBrokerId() == null ? null
+                : brokerRepository.findBrokerById(massCancelRq.getBrokerId());
+        Shareholder shareholder = massCancelRq.getShareholderId() == null ? null
+                : shareholderRepository.findShareholderById(massCancelRq.getShareholderId());
+        List<Order> cancelled = security.cancelOrders(massCancelRq.getSide(), broker, shareholder);
+
+        long totalQuantity = 0;
+        long refundedCredit = 0;
+        for (Order order : cancelled) {
+            totalQuantity += order.getTotalQuantity();
+            if (order.getSide() == Side.BUY)
+                refundedCredit += order.getValue();
+        }
+        eventPublisher.publish(new OrdersCancelledEvent(massCancelRq.getRequestId(), security.getIsin(),
+                cancelled.size(), totalQuantity, refundedCredit));
+        publishOpenPriceEvent(security);
+    }
+
+    private BatchLegResult deleteLeg(DeleteOrderRq leg, Security security, Broker broker) {
+        try {
+            requestControl.validateLeg(leg, security, broker);
+            security.deleteOrder(leg);
+        } catch (InvalidRequestException ex) {
+            return BatchLegResult.rejected(leg.getRequestId(), leg.getOrderId(), ex.getReasons());
+        }
+        return new BatchLegResult(leg.getRequestId(), leg.getOrderId(), BatchLegResult.Outcome.DELETED, false,
+                List.of(), List.of());
+    }
+
+    private BatchLegResult enterLeg(EnterOrderRq leg, Security security, Broker broker) {
+        Matcher matcher = matcherOf(security);
         MatchResult matchResult;
+        try {
+            requestControl.validateLeg(leg, security, broker);
+            Shareholder shareholder = shareholderRepository.findShareholderById(leg.getShareholderId());
+            matchResult = enterOrder(leg, security, broker, shareholder, matcher);
+        } catch (InvalidRequestException ex) {
+            return BatchLegResult.rejected(leg.getRequestId(), leg.getOrderId(), ex.getReasons());
+        }
+        String rejection = rejectionOf(matchResult.outcome());
+        if (rejection != null)
+            return BatchLegResult.rejected(leg.getRequestId(), leg.getOrderId(), List.of(rejection));
+
+        executeTriggeredStopLimitOrders(matchResult, security, matcher);
+        BatchLegResult.Outcome outcome = leg.getRequestType() == OrderEntryType.NEW_ORDER
+                ? BatchLegResult.Outcome.ACCEPTED : BatchLegResult.Outcome.UPDATED;
+        boolean activated = leg.getStopPrice() != 0 && matchResult.outcome() == MatchingOutcome.EXECUTED
+                && matchResult.remainder() != null;
+        return new BatchLegResult(leg.getRequestId(), leg.getOrderId(), outcome, activated, List.of(),
+                matchResult.trades().stream().map(TradeDTO::new).collect(Collectors.toList()));
+    }
 
-        if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER)
-            matchResult = security.newOrder(enterOrderRq, broker, shareholder, matcher);
-        else
-            matchResult = security.updateOrder(enterOrderRq, matcher);
+    private Matcher matcherOf(Security security) {
+        return (security.getState() == MatchingState.AUCTION) ? auctionMatcher : continuousMatcher;
+    }
 
-        publishEnterOrderReqEvents(matchResult, enterOrderRq);
+    private MatchResult enterOrder(EnterOrderRq enterOrderRq, Security security, Broker broker,
+                                   Shareholder shareholder, Matcher matcher) throws InvalidRequestException {
+        long started = latencyMonitor != null ? latencyMonitor.startStage() : 0;
+        try {
+            if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER)
+                return security.newOrder(enterOrderRq, broker, shareholder, matcher);
+            return security.updateOrder(enterOrderRq, matcher);
+        } finally {
+            if (latencyMonitor != null)
+                latencyMonitor.record(LatencyMonitor.Stage.ORDER_ENTRY, started);
+        }
+    }
+
+    private void executeTriggeredStopLimitOrders(MatchResult matchResult, Security security, Matcher matcher) {
         if (!matchResult.trades().isEmpty())
             matcher.executeTriggeredStopLimitOrders(security, eventPublisher,
                     matchResult.trades().getLast().getPrice());
-
-        publishOpenPriceEvent(security);
     }
 
     @Override
@@ -72,20 +178,20 @@ public class OrderHandler extends ReqHandler {
 
     ;
 
+    private static String rejectionOf(MatchingOutcome outcome) {
+        return switch (outcome) {
+            case NOT_ENOUGH_CREDIT -> Message.BUYER_HAS_NOT_ENOUGH_CREDIT;
+            case NOT_ENOUGH_POSITIONS -> Message.SELLER_HAS_NOT_ENOUGH_POSITIONS;
+            case MINIMUM_NOT_MATCHED -> Message.MINIMUM_EXECUTION_QUANTITY_NOT_MATCHED;
+            default -> null;
+        };
+    }
+
     private void publishEnterOrderReqEvents(MatchResult matchResult, EnterOrderRq enterOrderRq) {
-        if (matchResult.outcome() == MatchingOutcome.NOT_ENOUGH_CREDIT) {
-            eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(),
-                    List.of(Message.BUYER_HAS_NOT_ENOUGH_CREDIT)));
-            return;
-        }
-        if (matchResult.outcome() == MatchingOutcome.NOT_ENOUGH_POSITIONS) {
-            eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(),
-                    List.of(Message.SELLER_HAS_NOT_ENOUGH_POSITIONS)));
-            return;
-        }
-        if (matchResult.outcome() == MatchingOutcome.MINIMUM_NOT_MATCHED) {
+        String rejection = rejectionOf(matchResult.outcome());
+        if (rejection != null) {
             eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(),
-                    List.of(Message.MINIMUM_EXECUTION_QUANTITY_NOT_MATCHED)));
+                    List.of(rejection)));
             return;
         }
 
@@ -110,6 +216,8 @@ public class OrderHandler extends ReqHandler {
         if (security.getState() == MatchingState.CONTINUOUS)
             return;
         CustomPair pair = security.findOpeningPrice();
+        if (!security.updatePublishedOpeningPrice(pair))
+            return;
         eventPublisher.publish(new OpeningPriceEvent(security.getIsin(), pair.getFirst(), pair.getSecond()));
     }
 }
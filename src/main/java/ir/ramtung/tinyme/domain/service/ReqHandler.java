@@ -1,6 +1,7 @@
 package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.LatencyMonitor;
 import ir.ramtung.tinyme.repository.SecurityRepository;
 
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
@@ -12,6 +13,7 @@ public abstract class ReqHandler {
     ContinuousMatcher continuousMatcher;
     AuctionMatcher auctionMatcher;
     RequestControl requestControl;
+    LatencyMonitor latencyMonitor;
 
     protected void processRequest(EnterOrderRq request) throws InvalidRequestException {
     }
@@ -28,6 +30,12 @@ public abstract class ReqHandler {
 
     ;
 
+    protected void processRequest(BatchEnterOrderRq request) throws InvalidRequestException {
+    }
+
+    protected void processRequest(MassCancelRq request) {
+    }
+
     protected void handleInvalidRequest(Request request, InvalidRequestException ex) {
     }
 
@@ -38,6 +46,10 @@ public abstract class ReqHandler {
             requestControl.validateRequest((DeleteOrderRq) request);
         } else if (request instanceof ChangeMatchingStateRq) {
             requestControl.validateRequest((ChangeMatchingStateRq) request);
+        } else if (request instanceof BatchEnterOrderRq) {
+            requestControl.validateRequest((BatchEnterOrderRq) request);
+        } else if (request instanceof MassCancelRq) {
+            requestControl.validateRequest((MassCancelRq) request);
         }
     }
 
@@ -48,15 +60,43 @@ public abstract class ReqHandler {
             processRequest((DeleteOrderRq) request);
         } else if (request instanceof ChangeMatchingStateRq) {
             processRequest((ChangeMatchingStateRq) request);
+        } else if (request instanceof BatchEnterOrderRq) {
+            processRequest((BatchEnterOrderRq) request);
+        } else if (request instanceof MassCancelRq) {
+            processRequest((MassCancelRq) request);
         }
     }
 
     public final void handleRequest(Request request) {
+        handleValidatedRequest(request, prevalidate(request));
+    }
+
+    public final InvalidRequestException prevalidate(Request request) {
+        long started = latencyMonitor != null ? latencyMonitor.startSample() : 0;
         try {
             validateRequest(request);
+            return null;
+        } catch (InvalidRequestException ex) {
+            return ex;
+        } finally {
+            if (latencyMonitor != null)
+                latencyMonitor.record(request, LatencyMonitor.Stage.VALIDATE, started);
+        }
+    }
+
+    public final void handleValidatedRequest(Request request, InvalidRequestException rejection) {
+        boolean sampled = latencyMonitor != null && latencyMonitor.begin(request);
+        try {
+            if (rejection != null)
+                throw rejection;
+            if (request instanceof EnterOrderRq)
+                requestControl.validateRequestState((EnterOrderRq) request);
             processRequest(request);
         } catch (InvalidRequestException ex) {
             handleInvalidRequest(request, ex);
+        } finally {
+            if (sampled)
+                latencyMonitor.end();
         }
     }
 
@@ -1,6 +1,9 @@
 package ir.ramtung.tinyme.domain.service;
 
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Order;
 import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Side;
 import ir.ramtung.tinyme.messaging.Message;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
 import ir.ramtung.tinyme.messaging.request.*;
@@ -11,6 +14,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 
 @Component
 public class RequestControl {
@@ -37,9 +41,12 @@ public class RequestControl {
 
     protected void validateRequest(EnterOrderRq request) throws InvalidRequestException {
         validateEnterOrderRq(request);
-        validateAuctionStateRules(request, securityRepository.findSecurityByIsin(request.getSecurityIsin()));
     };
 
+    protected void validateRequestState(EnterOrderRq request) throws InvalidRequestException {
+        validateAuctionStateRules(request, securityRepository.findSecurityByIsin(request.getSecurityIsin()));
+    }
+
     private void validateEnterOrderRq(EnterOrderRq enterOrderRq) throws InvalidRequestException {
         List<String> errors = new LinkedList<>();
 
@@ -76,12 +83,15 @@ public class RequestControl {
         Security security = securityRepository.findSecurityByIsin(enterOrderRq.getSecurityIsin());
         if (security == null)
             errors.add(Message.UNKNOWN_SECURITY_ISIN);
-        else {
-            if (enterOrderRq.getQuantity() % security.getLotSize() != 0)
-                errors.add(Message.QUANTITY_NOT_MULTIPLE_OF_LOT_SIZE);
-            if (enterOrderRq.getPrice() % security.getTickSize() != 0)
-                errors.add(Message.PRICE_NOT_MULTIPLE_OF_TICK_SIZE);
-        }
+        else
+            validateLotAndTickSize(enterOrderRq, security, errors);
+    }
+
+    private void validateLotAndTickSize(EnterOrderRq enterOrderRq, Security security, List<String> errors) {
+        if (enterOrderRq.getQuantity() % security.getLotSize() != 0)
+            errors.add(Message.QUANTITY_NOT_MULTIPLE_OF_LOT_SIZE);
+        if (enterOrderRq.getPrice() % security.getTickSize() != 0)
+            errors.add(Message.PRICE_NOT_MULTIPLE_OF_TICK_SIZE);
     }
 
     private void validateBrokerAndShareholder(EnterOrderRq enterOrderRq, List<String> errors) {
@@ -118,4 +128,66 @@ public class RequestControl {
         validateDeleteOrderRq(request);
     };
 
+    protected void validateRequest(BatchEnterOrderRq request) throws InvalidRequestException {
+        List<String> errors = new LinkedList<>();
+        if (request.getDeleteLegs().isEmpty() && request.getEnterLegs().isEmpty())
+            errors.add(Message.EMPTY_BATCH);
+        if (securityRepository.findSecurityByIsin(request.getSecurityIsin()) == null)
+            errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        if (brokerRepository.findBrokerById(request.getBrokerId()) == null)
+            errors.add(Message.UNKNOWN_BROKER_ID);
+        boolean securityMismatch = request.getDeleteLegs().stream()
+                .anyMatch(leg -> !Objects.equals(request.getSecurityIsin(), leg.getSecurityIsin()));
+        boolean brokerMismatch = false;
+        for (EnterOrderRq leg : request.getEnterLegs()) {
+            securityMismatch |= !Objects.equals(request.getSecurityIsin(), leg.getSecurityIsin());
+            brokerMismatch |= leg.getBrokerId() != request.getBrokerId();
+        }
+        if (securityMismatch)
+            errors.add(Message.BATCH_LEG_SECURITY_MISMATCH);
+        if (brokerMismatch)
+            errors.add(Message.BATCH_LEG_BROKER_MISMATCH);
+        if (!errors.isEmpty())
+            throw new InvalidRequestException(errors);
+    }
+
+    protected void validateRequest(MassCancelRq request) throws InvalidRequestException {
+        List<String> errors = new LinkedList<>();
+        if (securityRepository.findSecurityByIsin(request.getSecurityIsin()) == null)
+            errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        if (request.getBrokerId() != null && brokerRepository.findBrokerById(request.getBrokerId()) == null)
+            errors.add(Message.UNKNOWN_BROKER_ID);
+        if (request.getShareholderId() != null
+                && shareholderRepository.findShareholderById(request.getShareholderId()) == null)
+            errors.add(Message.UNKNOWN_SHAREHOLDER_ID);
+        if (!errors.isEmpty())
+            throw new InvalidRequestException(errors);
+    }
+
+    protected void validateLeg(EnterOrderRq leg, Security security, Broker broker) throws InvalidRequestException {
+        if (leg.getRequestType() == OrderEntryType.UPDATE_ORDER)
+            validateLegOwnership(leg.getSide(), leg.getOrderId(), security, broker);
+        List<String> errors = new LinkedList<>();
+        validateOrderDetails(leg, errors);
+        validateLotAndTickSize(leg, security, errors);
+        if (shareholderRepository.findShareholderById(leg.getShareholderId()) == null)
+            errors.add(Message.UNKNOWN_SHAREHOLDER_ID);
+        if (!errors.isEmpty())
+            throw new InvalidRequestException(errors);
+        validateAuctionStateRules(leg, security);
+    }
+
+    protected void validateLeg(DeleteOrderRq leg, Security security, Broker broker) throws InvalidRequestException {
+        if (leg.getOrderId() <= 0)
+            throw new InvalidRequestException(Message.INVALID_ORDER_ID);
+        validateLegOwnership(leg.getSide(), leg.getOrderId(), security, broker);
+    }
+
+    private void validateLegOwnership(Side side, long orderId, Security security, Broker broker)
+            throws InvalidRequestException {
+        Order order = security.findOrderByOrderId(side, orderId);
+        if (order != null && order.getBroker().getBrokerId() != broker.getBrokerId())
+            throw new InvalidRequestException(Message.BATCH_LEG_BROKER_MISMATCH);
+    }
+
 }
@@ -0,0 +1,31 @@
+package ir.ramtung.tinyme.domain.service;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.StopOrderActivation")
+@Label("Stop Order Activation")
+@Category({"TinyME", "Matching"})
+@Description("Activation of a triggered stop limit order and the execution of the resulting order")
+@StackTrace(false)
+class StopOrderActivationEvent extends Event {
+    @Label("ISIN")
+    String isin;
+
+    @Label("Order ID")
+    long orderId;
+
+    @Label("Request ID")
+    long requestId;
+
+    @Label("Stop Price")
+    int stopPrice;
+
+    @Label("Last Trade Price")
+    int lastTradePrice;
+
+    @Label("Cascade Position")
+    int cascadePosition;
+
+    @Label("Trades")
+    int trades;
+}
@@ -0,0 +1,28 @@
+package ir.ramtung.tinyme.domain.service;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.TradeRollback")
+@Label("Trade Rollback")
+@Category({"TinyME", "Matching"})
+@Description("Undoing the trades of an order that could not be accepted")
+@StackTrace(false)
+class TradeRollbackEvent extends Event {
+    @Label("ISIN")
+    String isin;
+
+    @Label("Order ID")
+    long orderId;
+
+    @Label("Side")
+    String side;
+
+    @Label("Trades")
+    int trades;
+
+    @Label("Value")
+    long value;
+
+    @Label("Reason")
+    String reason;
+}
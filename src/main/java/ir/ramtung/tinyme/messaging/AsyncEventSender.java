@@ -0,0 +1,298 @@
+package ir.ramtung.tinyme.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ir.ramtung.tinyme.messaging.event.Event;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Component
+public class AsyncEventSender implements SmartLifecycle {
+    public enum Backpressure {
+        BLOCK, DROP, SPILL
+    }
+
+    private static final long MIN_RECONNECT_MILLIS = 100;
+    private static final long MAX_RECONNECT_MILLIS = 10_000;
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final JmsTemplate jmsTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Event> queue;
+    private final int batchSize;
+    private final Backpressure backpressure;
+    private final Path spillFile;
+    private final String responseQueue;
+    private final AtomicLong dropped = new AtomicLong();
+    private boolean spilling;
+    private BufferedWriter spillWriter;
+    private Thread sender;
+    private volatile boolean running;
+
+    public AsyncEventSender(JmsTemplate jmsTemplate, ObjectMapper objectMapper,
+                            @Value("${eventQueueCapacity:0}") int capacity,
+                            @Value("${eventBatchSize:256}") int batchSize,
+                            @Value("${eventBackpressure:BLOCK}") Backpressure backpressure,
+                            @Value("${eventSpillFile:events.spill}") String spillFile,
+                            @Value("${responseQueue}") String responseQueue) {
+        this.jmsTemplate = jmsTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = capacity == 0 ? null : new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.backpressure = backpressure;
+        this.spillFile = Path.of(spillFile);
+        this.responseQueue = responseQueue;
+    }
+
+    public boolean isEnabled() {
+        return queue != null;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public void enqueue(Event event) {
+        synchronized (this) {
+            if (spilling) {
+                spill(event);
+                return;
+            }
+        }
+        switch (backpressure) {
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while publishing " + event, ex);
+                }
+            }
+            case DROP -> {
+                if (!queue.offer(event) && dropped.incrementAndGet() % 1000 == 1)
+                    log.warning("Outbound event queue is full, dropped " + dropped.get() + " events so far");
+            }
+            case SPILL -> {
+                if (!queue.offer(event))
+                    synchronized (this) {
+                        spilling = true;
+                        spill(event);
+                    }
+            }
+        }
+    }
+
+    private void spill(Event event) {
+        try {
+            if (spillWriter == null)
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            writeSpilled(spillWriter, event);
+            spillWriter.flush();
+        } catch (IOException ex) {
+            dropped.incrementAndGet();
+            log.log(Level.SEVERE, "Could not spill " + event, ex);
+        }
+    }
+
+    private void writeSpilled(BufferedWriter writer, Event event) throws IOException {
+        writer.write(event.getClass().getName() + "\t" + objectMapper.writeValueAsString(event));
+        writer.newLine();
+    }
+
+    private void closeSpillWriter() throws IOException {
+        BufferedWriter writer = spillWriter;
+        spillWriter = null;
+        if (writer != null)
+            writer.close();
+    }
+
+    private synchronized List<Event> takeSpilled() {
+        List<Event> events = new ArrayList<>();
+        if (!spilling)
+            return events;
+        try {
+            closeSpillWriter();
+            if (Files.exists(spillFile)) {
+                for (String line : Files.readAllLines(spillFile, StandardCharsets.UTF_8)) {
+                    int tab = line.indexOf('\t');
+                    Class<?> type = Class.forName(line.substring(0, tab));
+                    events.add((Event) objectMapper.readValue(line.substring(tab + 1), type));
+                }
+                Files.delete(spillFile);
+            }
+        } catch (IOException | ClassNotFoundException ex) {
+            log.log(Level.SEVERE, "Could not read spilled events from " + spillFile, ex);
+            return new ArrayList<>();
+        }
+        spilling = false;
+        return events;
+    }
+
+    private synchronized void spillOnShutdown(Deque<Event> unsent) {
+        List<Event> events = new ArrayList<>(unsent);
+        queue.drainTo(events);
+        if (events.isEmpty())
+            return;
+        Path pending = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+        try {
+            closeSpillWriter();
+            try (BufferedWriter writer = Files.newBufferedWriter(pending, StandardCharsets.UTF_8)) {
+                for (Event event : events)
+                    writeSpilled(writer, event);
+                if (Files.exists(spillFile))
+                    for (String line : Files.readAllLines(spillFile, StandardCharsets.UTF_8)) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+            }
+            Files.move(pending, spillFile, StandardCopyOption.REPLACE_EXISTING);
+            spilling = true;
+            log.warning("Spilled " + events.size() + " unsent events to " + spillFile + " on shutdown");
+        } catch (IOException ex) {
+            dropped.addAndGet(events.size());
+            log.log(Level.SEVERE, "Could not spill " + events.size() + " unsent events on shutdown", ex);
+        }
+    }
+
+    private void run() {
+        Deque<Event> unsent = new ArrayDeque<>(batchSize);
+        long reconnectMillis = MIN_RECONNECT_MILLIS;
+        boolean retriedWhileStopping = false;
+        while (true) {
+            try (Connection connection = jmsTemplate.getConnectionFactory().createConnection();
+                 Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+                 MessageProducer producer = session.createProducer(session.createQueue(responseQueue))) {
+                MessageConverter converter = jmsTemplate.getMessageConverter();
+                while (true) {
+                    if (unsent.isEmpty()) {
+                        Event first = queue.poll(10, TimeUnit.MILLISECONDS);
+                        if (first != null) {
+                            unsent.add(first);
+                            queue.drainTo(unsent, batchSize - 1);
+                        } else {
+                            unsent.addAll(takeSpilled());
+                            if (unsent.isEmpty() && !running && queue.isEmpty())
+                                return;
+                            continue;
+                        }
+                    }
+                    send(unsent, session, producer, converter);
+                    reconnectMillis = MIN_RECONNECT_MILLIS;
+                }
+            } catch (JMSException | RuntimeException ex) {
+                if (!running && retriedWhileStopping) {
+                    log.log(Level.SEVERE, "Event publishing failed during shutdown", ex);
+                    spillOnShutdown(unsent);
+                    return;
+                }
+                retriedWhileStopping = !running;
+                log.log(Level.SEVERE, "Event publishing failed, reconnecting in " + reconnectMillis + " ms", ex);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(reconnectMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    spillOnShutdown(unsent);
+                    return;
+                }
+                reconnectMillis = Math.min(reconnectMillis * 2, MAX_RECONNECT_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                spillOnShutdown(unsent);
+                return;
+            }
+        }
+    }
+
+    private void send(Deque<Event> unsent, Session session, MessageProducer producer, MessageConverter converter)
+            throws JMSException {
+        int count = Math.min(unsent.size(), batchSize);
+        Iterator<Event> events = unsent.iterator();
+        try {
+            for (int i = 0; i < count; i++) {
+                Event event = events.next();
+                Message message;
+                try {
+                    message = converter.toMessage(event, session);
+                } catch (MessageConversionException ex) {
+                    dropped.incrementAndGet();
+                    log.log(Level.SEVERE, "Could not convert " + event, ex);
+                    continue;
+                }
+                producer.send(message);
+                log.info("Published : " + event);
+            }
+            session.commit();
+        } catch (JMSException | RuntimeException ex) {
+            try {
+                session.rollback();
+            } catch (JMSException rollbackFailure) {
+                ex.addSuppressed(rollbackFailure);
+            }
+            throw ex;
+        }
+        for (int i = 0; i < count; i++)
+            unsent.removeFirst();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!isEnabled())
+            return;
+        synchronized (this) {
+            spilling = spilling || Files.exists(spillFile);
+        }
+        sender = new Thread(this::run, "event-sender");
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (sender == null)
+            return;
+        try {
+            sender.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 2;
+    }
+}
@@ -0,0 +1,23 @@
+package ir.ramtung.tinyme.messaging;
+
+import java.util.List;
+
+public record BatchLegResult(
+    long requestId,
+    long orderId,
+    Outcome outcome,
+    boolean activated,
+    List<String> errors,
+    List<TradeDTO> trades) {
+
+    public enum Outcome {
+        ACCEPTED,
+        UPDATED,
+        DELETED,
+        REJECTED
+    }
+
+    public static BatchLegResult rejected(long requestId, long orderId, List<String> errors) {
+        return new BatchLegResult(requestId, orderId, Outcome.REJECTED, false, errors, List.of());
+    }
+}
@@ -0,0 +1,478 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BinaryCodec {
+    public static final short SCHEMA_ID = 0x544D;
+    public static final short SCHEMA_VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final long NULL_ID = Long.MIN_VALUE;
+
+    private static final short ENTER_ORDER_RQ = 1;
+    private static final short DELETE_ORDER_RQ = 2;
+    private static final short CHANGE_MATCHING_STATE_RQ = 3;
+    private static final short BATCH_ENTER_ORDER_RQ = 4;
+    private static final short MASS_CANCEL_RQ = 5;
+    private static final short ORDER_ACCEPTED = 10;
+    private static final short ORDER_ACTIVATED = 11;
+    private static final short ORDER_DELETED = 12;
+    private static final short ORDER_UPDATED = 13;
+    private static final short ORDER_REJECTED = 14;
+    private static final short ORDER_EXECUTED = 15;
+    private static final short OPENING_PRICE = 16;
+    private static final short TRADE = 17;
+    private static final short SECURITY_STATE_CHANGED = 18;
+    private static final short SECURITY_STATE_CHANGE_REJECTED = 19;
+    private static final short BATCH_ORDER_RESULT = 20;
+    private static final short ORDERS_CANCELLED = 21;
+
+    public int encode(Object message, ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        buffer.position(start + HEADER_LENGTH);
+        short templateId = encodeFixedBlock(message, buffer);
+        int blockLength = buffer.position() - start - HEADER_LENGTH;
+        buffer.putShort(start, SCHEMA_ID);
+        buffer.putShort(start + 2, SCHEMA_VERSION);
+        buffer.putShort(start + 4, templateId);
+        buffer.putShort(start + 6, checkedLength(blockLength, "fixed block"));
+        encodeVariableData(message, buffer);
+        return buffer.position() - start;
+    }
+
+    public Object decode(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        short schemaId = buffer.getShort();
+        short version = buffer.getShort();
+        short templateId = buffer.getShort();
+        int blockLength = buffer.getShort();
+        if (schemaId != SCHEMA_ID || version < 1 || blockLength < 0)
+            throw new IllegalArgumentException("Unsupported message schema " + schemaId + " version " + version);
+        int variableData = buffer.position() + blockLength;
+        return switch (templateId) {
+            case ENTER_ORDER_RQ -> decodeEnterOrderRq(buffer, variableData);
+            case DELETE_ORDER_RQ -> decodeDeleteOrderRq(buffer, variableData);
+            case CHANGE_MATCHING_STATE_RQ -> decodeChangeMatchingStateRq(buffer, variableData);
+            case BATCH_ENTER_ORDER_RQ -> decodeBatchEnterOrderRq(buffer, variableData);
+            case MASS_CANCEL_RQ -> decodeMassCancelRq(buffer, variableData);
+            case ORDER_ACCEPTED, ORDER_ACTIVATED, ORDER_DELETED, ORDER_UPDATED, ORDER_REJECTED, ORDER_EXECUTED ->
+                    decodeOrderEvent(templateId, buffer, variableData);
+            case OPENING_PRICE -> decodeOpeningPriceEvent(buffer, variableData);
+            case TRADE -> decodeTradeEvent(buffer, variableData);
+            case SECURITY_STATE_CHANGED -> decodeSecurityStateChangedEvent(buffer, variableData);
+            case SECURITY_STATE_CHANGE_REJECTED -> decodeSecurityStateChangeRejectedEvent(buffer, variableData);
+            case BATCH_ORDER_RESULT -> decodeBatchOrderResultEvent(buffer, variableData);
+            case ORDERS_CANCELLED -> decodeOrdersCancelledEvent(buffer, variableData);
+            default -> throw new IllegalArgumentException("Unknown message template " + templateId);
+        };
+    }
+
+    private short encodeFixedBlock(Object message, ByteBuffer buffer) {
+        if (message instanceof EnterOrderRq rq) {
+            buffer.putLong(rq.getRequestId());
+            buffer.putLong(rq.getOrderId());
+            putEnum(buffer, rq.getRequestType());
+            putEnum(buffer, rq.getSide());
+            buffer.putInt(rq.getQuantity());
+            buffer.putInt(rq.getPrice());
+            buffer.putLong(rq.getBrokerId());
+            buffer.putLong(rq.getShareholderId());
+            buffer.putInt(rq.getPeakSize());
+            buffer.putInt(rq.getMinimumExecutionQuantity());
+            buffer.putInt(rq.getStopPrice());
+            putTime(buffer, rq.getEntryTime());
+            return ENTER_ORDER_RQ;
+        }
+        if (message instanceof DeleteOrderRq rq) {
+            buffer.putLong(rq.getRequestId());
+            buffer.putLong(rq.getOrderId());
+            putEnum(buffer, rq.getSide());
+            putTime(buffer, rq.getEntryTime());
+            return DELETE_ORDER_RQ;
+        }
+        if (message instanceof ChangeMatchingStateRq rq) {
+            putEnum(buffer, rq.getTargetState());
+            return CHANGE_MATCHING_STATE_RQ;
+        }
+        if (message instanceof BatchEnterOrderRq rq) {
+            buffer.putLong(rq.getRequestId());
+            buffer.putLong(rq.getBrokerId());
+            return BATCH_ENTER_ORDER_RQ;
+        }
+        if (message instanceof MassCancelRq rq) {
+            buffer.putLong(rq.getRequestId());
+            buffer.putLong(rq.getBrokerId() == null ? NULL_ID : rq.getBrokerId());
+            buffer.putLong(rq.getShareholderId() == null ? NULL_ID : rq.getShareholderId());
+            putEnum(buffer, rq.getSide());
+            return MASS_CANCEL_RQ;
+        }
+        if (!(message instanceof Event event))
+            throw new IllegalArgumentException("No binary layout for " + message.getClass().getName());
+        putTime(buffer, event.getTime());
+        if (event instanceof OrderAcceptedEvent e)
+            return putOrderIds(buffer, ORDER_ACCEPTED, e.getRequestId(), e.getOrderId());
+        if (event instanceof OrderActivatedEvent e)
+            return putOrderIds(buffer, ORDER_ACTIVATED, e.getRequestId(), e.getOrderId());
+        if (event instanceof OrderDeletedEvent e)
+            return putOrderIds(buffer, ORDER_DELETED, e.getRequestId(), e.getOrderId());
+        if (event instanceof OrderUpdatedEvent e)
+            return putOrderIds(buffer, ORDER_UPDATED, e.getRequestId(), e.getOrderId());
+        if (event instanceof OrderRejectedEvent e)
+            return putOrderIds(buffer, ORDER_REJECTED, e.getRequestId(), e.getOrderId());
+        if (event instanceof OrderExecutedEvent e)
+            return putOrderIds(buffer, ORDER_EXECUTED, e.getRequestId(), e.getOrderId());
+        if (event instanceof OpeningPriceEvent e) {
+            buffer.putInt(e.getOpeningPrice());
+            buffer.putInt(e.getTradableQuantity());
+            return OPENING_PRICE;
+        }
+        if (event instanceof TradeEvent e) {
+            buffer.putInt(e.getPrice());
+            buffer.putInt(e.getQuantity());
+            buffer.putLong(e.getBuyId());
+            buffer.putLong(e.getSellId());
+            return TRADE;
+        }
+        if (event instanceof SecurityStateChangedEvent e) {
+            putEnum(buffer, e.getState());
+            return SECURITY_STATE_CHANGED;
+        }
+        if (event instanceof SecurirtyStateChangeRejectedEvent)
+            return SECURITY_STATE_CHANGE_REJECTED;
+        if (event instanceof BatchOrderResultEvent e) {
+            buffer.putLong(e.getRequestId());
+            return BATCH_ORDER_RESULT;
+        }
+        if (event instanceof OrdersCancelledEvent e) {
+            buffer.putLong(e.getRequestId());
+            buffer.putInt(e.getOrderCount());
+            buffer.putLong(e.getTotalQuantity());
+            buffer.putLong(e.getRefundedCredit());
+            return ORDERS_CANCELLED;
+        }
+        throw new IllegalArgumentException("No binary layout for " + message.getClass().getName());
+    }
+
+    private void encodeVariableData(Object message, ByteBuffer buffer) {
+        if (message instanceof Request rq)
+            putString(buffer, rq.getSecurityIsin());
+        if (message instanceof BatchEnterOrderRq rq) {
+            putLegs(buffer, rq.getDeleteLegs());
+            putLegs(buffer, rq.getEnterLegs());
+        }
+        else if (message instanceof OpeningPriceEvent e)
+            putString(buffer, e.getSecurityIsin());
+        else if (message instanceof OrdersCancelledEvent e)
+            putString(buffer, e.getSecurityIsin());
+        else if (message instanceof TradeEvent e)
+            putString(buffer, e.getSecurityIsin());
+        else if (message instanceof SecurityStateChangedEvent e)
+            putString(buffer, e.getSecurityIsin());
+        else if (message instanceof SecurirtyStateChangeRejectedEvent e)
+            putString(buffer, e.getError());
+        else if (message instanceof OrderRejectedEvent e)
+            putErrors(buffer, e.getErrors());
+        else if (message instanceof OrderExecutedEvent e)
+            putTrades(buffer, e.getTrades());
+        else if (message instanceof BatchOrderResultEvent e) {
+            putCount(buffer, e.getLegs(), "batch leg results");
+            if (e.getLegs() != null)
+                for (BatchLegResult leg : e.getLegs()) {
+                    buffer.putLong(leg.requestId());
+                    buffer.putLong(leg.orderId());
+                    putEnum(buffer, leg.outcome());
+                    buffer.put((byte) (leg.activated() ? 1 : 0));
+                    putErrors(buffer, leg.errors());
+                    putTrades(buffer, leg.trades());
+                }
+        }
+    }
+
+    private void putLegs(ByteBuffer buffer, List<? extends Request> legs) {
+        putCount(buffer, legs, "batch legs");
+        if (legs != null)
+            for (Request leg : legs)
+                encode(leg, buffer);
+    }
+
+    private static void putErrors(ByteBuffer buffer, List<String> errors) {
+        putCount(buffer, errors, "errors");
+        if (errors != null)
+            for (String error : errors)
+                putString(buffer, error);
+    }
+
+    private static void putTrades(ByteBuffer buffer, List<TradeDTO> trades) {
+        putCount(buffer, trades, "trades");
+        if (trades != null)
+            for (TradeDTO trade : trades) {
+                buffer.putInt(trade.price());
+                buffer.putInt(trade.quantity());
+                buffer.putLong(trade.buyOrderId());
+                buffer.putLong(trade.sellOrderId());
+                putString(buffer, trade.securityIsin());
+            }
+    }
+
+    private EnterOrderRq decodeEnterOrderRq(ByteBuffer buffer, int variableData) {
+        EnterOrderRq rq = new EnterOrderRq();
+        rq.setRequestId(buffer.getLong());
+        rq.setOrderId(buffer.getLong());
+        rq.setRequestType(getEnum(buffer, OrderEntryType.values()));
+        rq.setSide(getEnum(buffer, Side.values()));
+        rq.setQuantity(buffer.getInt());
+        rq.setPrice(buffer.getInt());
+        rq.setBrokerId(buffer.getLong());
+        rq.setShareholderId(buffer.getLong());
+        rq.setPeakSize(buffer.getInt());
+        rq.setMinimumExecutionQuantity(buffer.getInt());
+        rq.setStopPrice(buffer.getInt());
+        rq.setEntryTime(getTime(buffer));
+        buffer.position(variableData);
+        rq.setSecurityIsin(getString(buffer));
+        return rq;
+    }
+
+    private DeleteOrderRq decodeDeleteOrderRq(ByteBuffer buffer, int variableData) {
+        DeleteOrderRq rq = new DeleteOrderRq();
+        rq.setRequestId(buffer.getLong());
+        rq.setOrderId(buffer.getLong());
+        rq.setSide(getEnum(buffer, Side.values()));
+        rq.setEntryTime(getTime(buffer));
+        buffer.position(variableData);
+        rq.setSecurityIsin(getString(buffer));
+        return rq;
+    }
+
+    private ChangeMatchingStateRq decodeChangeMatchingStateRq(ByteBuffer buffer, int variableData) {
+        ChangeMatchingStateRq rq = new ChangeMatchingStateRq();
+        rq.setTargetState(getEnum(buffer, MatchingState.values()));
+        buffer.position(variableData);
+        rq.setSecurityIsin(getString(buffer));
+        return rq;
+    }
+
+    private BatchEnterOrderRq decodeBatchEnterOrderRq(ByteBuffer buffer, int variableData) {
+        BatchEnterOrderRq rq = new BatchEnterOrderRq();
+        rq.setRequestId(buffer.getLong());
+        rq.setBrokerId(buffer.getLong());
+        buffer.position(variableData);
+        rq.setSecurityIsin(getString(buffer));
+        rq.setDeleteLegs(getLegs(buffer));
+        rq.setEnterLegs(getLegs(buffer));
+        return rq;
+    }
+
+    private MassCancelRq decodeMassCancelRq(ByteBuffer buffer, int variableData) {
+        MassCancelRq rq = new MassCancelRq();
+        rq.setRequestId(buffer.getLong());
+        long brokerId = buffer.getLong();
+        long shareholderId = buffer.getLong();
+        rq.setBrokerId(brokerId == NULL_ID ? null : brokerId);
+        rq.setShareholderId(shareholderId == NULL_ID ? null : shareholderId);
+        rq.setSide(getEnum(buffer, Side.values()));
+        buffer.position(variableData);
+        rq.setSecurityIsin(getString(buffer));
+        return rq;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Request> List<T> getLegs(ByteBuffer buffer) {
+        int count = buffer.getShort();
+        if (count < 0)
+            return null;
+        List<T> legs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            legs.add((T) decode(buffer));
+        return legs;
+    }
+
+    private Event decodeOrderEvent(short templateId, ByteBuffer buffer, int variableData) {
+        LocalDateTime time = getTime(buffer);
+        long requestId = buffer.getLong();
+        long orderId = buffer.getLong();
+        buffer.position(variableData);
+        Event event = switch (templateId) {
+            case ORDER_ACCEPTED -> new OrderAcceptedEvent(requestId, orderId);
+            case ORDER_ACTIVATED -> new OrderActivatedEvent(requestId, orderId);
+            case ORDER_DELETED -> new OrderDeletedEvent(requestId, orderId);
+            case ORDER_UPDATED -> new OrderUpdatedEvent(requestId, orderId);
+            case ORDER_REJECTED -> new OrderRejectedEvent(requestId, orderId, getErrors(buffer));
+            default -> new OrderExecutedEvent(requestId, orderId, getTrades(buffer));
+        };
+        event.setTime(time);
+        return event;
+    }
+
+    private List<String> getErrors(ByteBuffer buffer) {
+        int count = buffer.getShort();
+        if (count < 0)
+            return null;
+        List<String> errors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            errors.add(getString(buffer));
+        return errors;
+    }
+
+    private List<TradeDTO> getTrades(ByteBuffer buffer) {
+        int count = buffer.getShort();
+        if (count < 0)
+            return null;
+        List<TradeDTO> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int price = buffer.getInt();
+            int quantity = buffer.getInt();
+            long buyOrderId = buffer.getLong();
+            long sellOrderId = buffer.getLong();
+            trades.add(new TradeDTO(getString(buffer), price, quantity, buyOrderId, sellOrderId));
+        }
+        return trades;
+    }
+
+    private BatchOrderResultEvent decodeBatchOrderResultEvent(ByteBuffer buffer, int variableData) {
+        LocalDateTime time = getTime(buffer);
+        long requestId = buffer.getLong();
+        buffer.position(variableData);
+        int count = buffer.getShort();
+        List<BatchLegResult> legs = null;
+        if (count >= 0) {
+            legs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long legRequestId = buffer.getLong();
+                long orderId = buffer.getLong();
+                BatchLegResult.Outcome outcome = getEnum(buffer, BatchLegResult.Outcome.values());
+                boolean activated = buffer.get() != 0;
+                List<String> errors = getErrors(buffer);
+                legs.add(new BatchLegResult(legRequestId, orderId, outcome, activated, errors, getTrades(buffer)));
+            }
+        }
+        BatchOrderResultEvent event = new BatchOrderResultEvent(requestId, legs);
+        event.setTime(time);
+        return event;
+    }
+
+    private OrdersCancelledEvent decodeOrdersCancelledEvent(ByteBuffer buffer, int variableData) {
+        LocalDateTime time = getTime(buffer);
+        long requestId = buffer.getLong();
+        int orderCount = buffer.getInt();
+        long totalQuantity = buffer.getLong();
+        long refundedCredit = buffer.getLong();
+        buffer.position(variableData);
+        OrdersCancelledEvent event = new OrdersCancelledEvent(requestId, getString(buffer), orderCount,
+                totalQuantity, refundedCredit);
+        event.setTime(time);
+        return event;
+    }
+
+    private OpeningPriceEvent decodeOpeningPriceEvent(ByteBuffer buffer, int variableData) {
+        LocalDateTime time = getTime(buffer);
+        int openingPrice = buffer.getInt();
+        int tradableQuantity = buffer.getInt();
+        buffer.position(variableData);
+        OpeningPriceEvent event = new OpeningPriceEvent(getString(buffer), openingPrice, tradableQuantity);
+        event.setTime(time);
+        return event;
+    }
+
+    private TradeEvent decodeTradeEvent(ByteBuffer buffer, int variableData) {
+        LocalDateTime time = getTime(buffer);
+        int price = buffer.getInt();
+        int quantity = buffer.getInt();
+        long buyId = buffer.getLong();
+        long sellId = buffer.getLong();
+        buffer.position(variableData);
+        TradeEvent event = new TradeEvent(getString(buffer), price, quantity, buyId, sellId);
+        event.setTime(time);
+        return event;
+    }
+
+    private SecurityStateChangedEvent decodeSecurityStateChangedEvent(ByteBuffer buffer, int variableData) {
+        LocalDateTime time = getTime(buffer);
+        MatchingState state = getEnum(buffer, MatchingState.values());
+        buffer.position(variableData);
+        SecurityStateChangedEvent event = new SecurityStateChangedEvent(getString(buffer), state);
+        event.setTime(time);
+        return event;
+    }
+
+    private SecurirtyStateChangeRejectedEvent decodeSecurityStateChangeRejectedEvent(ByteBuffer buffer,
+                                                                                    int variableData) {
+        LocalDateTime time = getTime(buffer);
+        buffer.position(variableData);
+        SecurirtyStateChangeRejectedEvent event = new SecurirtyStateChangeRejectedEvent(getString(buffer));
+        event.setTime(time);
+        return event;
+    }
+
+    private static short putOrderIds(ByteBuffer buffer, short templateId, long requestId, long orderId) {
+        buffer.putLong(requestId);
+        buffer.putLong(orderId);
+        return templateId;
+    }
+
+    private static void putEnum(ByteBuffer buffer, Enum<?> value) {
+        buffer.put((byte) (value == null ? -1 : value.ordinal()));
+    }
+
+    private static <E extends Enum<E>> E getEnum(ByteBuffer buffer, E[] values) {
+        int ordinal = buffer.get();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        if (time == null) {
+            buffer.putLong(NULL_TIME);
+            buffer.putInt(0);
+        } else {
+            buffer.putLong(time.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        return seconds == NULL_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort(checkedLength(bytes.length, "string bytes"));
+        buffer.put(bytes);
+    }
+
+    private static void putCount(ByteBuffer buffer, List<?> values, String what) {
+        buffer.putShort(values == null ? -1 : checkedLength(values.size(), what));
+    }
+
+    private static short checkedLength(int length, String what) {
+        if (length > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Too many " + what + " to encode: " + length + " > " + Short.MAX_VALUE);
+        return (short) length;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0)
+            return null;
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
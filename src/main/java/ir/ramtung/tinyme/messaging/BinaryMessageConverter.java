@@ -0,0 +1,67 @@
+package ir.ramtung.tinyme.messaging;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+public class BinaryMessageConverter implements MessageConverter {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final BinaryCodec codec = new BinaryCodec();
+    private final MessageConverter fallback;
+    private final String typeIdPropertyName;
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    public BinaryMessageConverter(MessageConverter fallback, String typeIdPropertyName) {
+        this.fallback = fallback;
+        this.typeIdPropertyName = typeIdPropertyName;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+        ByteBuffer buffer = buffers.get();
+        int length;
+        while (true) {
+            try {
+                buffer.clear();
+                length = codec.encode(object, buffer);
+                break;
+            } catch (BufferOverflowException ex) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffers.set(buffer);
+            } catch (IllegalArgumentException ex) {
+                throw new MessageConversionException("Cannot encode " + object.getClass().getName(), ex);
+            }
+        }
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(buffer.array(), 0, length);
+        message.setStringProperty(typeIdPropertyName, object.getClass().getName());
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+        if (!(message instanceof BytesMessage bytesMessage))
+            return fallback.fromMessage(message);
+        int length = (int) bytesMessage.getBodyLength();
+        ByteBuffer buffer = buffers.get();
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+            buffers.set(buffer);
+        }
+        buffer.clear();
+        bytesMessage.readBytes(buffer.array(), length);
+        buffer.limit(length);
+        try {
+            return codec.decode(buffer);
+        } catch (RuntimeException ex) {
+            throw new MessageConversionException("Cannot decode binary message", ex);
+        }
+    }
+}
@@ -1,25 +1,71 @@
 package ir.ramtung.tinyme.messaging;
 
 import ir.ramtung.tinyme.messaging.event.Event;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.logging.Logger;
 
 @Component
 public class EventPublisher {
     private final Logger log = Logger.getLogger(this.getClass().getName());
     private final JmsTemplate jmsTemplate;
+    private final AsyncEventSender asyncEventSender;
+    private final LatencyMonitor latencyMonitor;
     @Value("${responseQueue}")
     private String responseQueue;
+    private final ThreadLocal<List<Event>> capturedEvents = new ThreadLocal<>();
 
-    public EventPublisher(JmsTemplate jmsTemplate) {
+    @Autowired
+    public EventPublisher(JmsTemplate jmsTemplate, AsyncEventSender asyncEventSender, LatencyMonitor latencyMonitor) {
         this.jmsTemplate = jmsTemplate;
+        this.asyncEventSender = asyncEventSender;
+        this.latencyMonitor = latencyMonitor != null && latencyMonitor.isEnabled() ? latencyMonitor : null;
+    }
+
+    public EventPublisher(JmsTemplate jmsTemplate, AsyncEventSender asyncEventSender) {
+        this(jmsTemplate, asyncEventSender, null);
+    }
+
+    public EventPublisher(JmsTemplate jmsTemplate) {
+        this(jmsTemplate, null, null);
     }
 
     public void publish(Event event) {
+        List<Event> captured = capturedEvents.get();
+        if (captured != null)
+            captured.add(event);
+        else
+            send(event);
+    }
+
+    public void send(Event event) {
+        if (latencyMonitor == null) {
+            deliver(event);
+            return;
+        }
+        long started = latencyMonitor.startStage();
+        deliver(event);
+        latencyMonitor.record(LatencyMonitor.Stage.PUBLISH, started);
+    }
+
+    private void deliver(Event event) {
+        if (asyncEventSender != null && asyncEventSender.isEnabled()) {
+            asyncEventSender.enqueue(event);
+            return;
+        }
         log.info("Published : " + event);
         jmsTemplate.convertAndSend(responseQueue, event);
     }
+
+    public void captureInto(List<Event> events) {
+        capturedEvents.set(events);
+    }
+
+    public void stopCapturing() {
+        capturedEvents.remove();
+    }
 }
@@ -0,0 +1,282 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.request.*;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+@Component
+@ManagedResource(objectName = "ir.ramtung.tinyme:name=LatencyMonitor")
+public class LatencyMonitor implements SmartLifecycle {
+    public enum Stage {
+        DESERIALIZE, VALIDATE, ORDER_ENTRY, MATCH, STOP_CASCADE, PUBLISH
+    }
+
+    public enum RequestKind {
+        NEW_ORDER, UPDATE_ORDER, DELETE_ORDER, CHANGE_STATE, BATCH_ENTRY, MASS_CANCEL;
+
+        public static RequestKind of(Request request) {
+            if (request instanceof EnterOrderRq enterOrderRq)
+                return enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER ? NEW_ORDER : UPDATE_ORDER;
+            if (request instanceof DeleteOrderRq)
+                return DELETE_ORDER;
+            if (request instanceof ChangeMatchingStateRq)
+                return CHANGE_STATE;
+            if (request instanceof BatchEnterOrderRq)
+                return BATCH_ENTRY;
+            return MASS_CANCEL;
+        }
+    }
+
+    private static final int STAGES = Stage.values().length;
+    private static final int SLOTS = RequestKind.values().length * STAGES;
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final int MAX_SECURITIES = 4096;
+    private static final int DEFAULT_MAX_SLOTS = 1024;
+    private static final String OTHER_SECURITIES = "*";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private static class Slot {
+        final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        Histogram interval;
+        final Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    private static class Scope {
+        Slot[] slots;
+        int base;
+    }
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final boolean enabled;
+    private final int sampleEvery;
+    private final long dumpSeconds;
+    private final int maxSlots;
+    private final Map<String, Slot[]> slotsByIsin = new ConcurrentHashMap<>();
+    private final Slot[] otherSlots = new Slot[SLOTS];
+    private int slotCount;
+    private volatile boolean full;
+    private final ThreadLocal<Scope> scope = ThreadLocal.withInitial(Scope::new);
+    private final AtomicInteger sampling = new AtomicInteger();
+    private Thread dumper;
+    private volatile boolean running;
+
+    @Autowired
+    public LatencyMonitor(@Value("${latencyMonitoring:false}") boolean enabled,
+                          @Value("${latencySampleEvery:1}") int sampleEvery,
+                          @Value("${latencyDumpSeconds:60}") long dumpSeconds,
+                          @Value("${latencyMaxSlots:1024}") int maxSlots) {
+        this.enabled = enabled;
+        this.sampleEvery = Math.max(sampleEvery, 1);
+        this.dumpSeconds = dumpSeconds;
+        this.maxSlots = Math.max(maxSlots, SLOTS);
+        slotsByIsin.put(OTHER_SECURITIES, otherSlots);
+    }
+
+    public LatencyMonitor(boolean enabled, int sampleEvery, long dumpSeconds) {
+        this(enabled, sampleEvery, dumpSeconds, DEFAULT_MAX_SLOTS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private boolean sampled() {
+        return sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0;
+    }
+
+    public boolean begin(Request request) {
+        if (!sampled())
+            return false;
+        Scope current = scope.get();
+        current.slots = slotsOf(request.getSecurityIsin());
+        current.base = RequestKind.of(request).ordinal() * STAGES;
+        sampling.incrementAndGet();
+        return true;
+    }
+
+    public void end() {
+        scope.get().slots = null;
+        sampling.decrementAndGet();
+    }
+
+    public long startStage() {
+        if (sampling.get() == 0)
+            return 0;
+        return scope.get().slots != null ? System.nanoTime() : 0;
+    }
+
+    public void record(Stage stage, long startedNanos) {
+        if (startedNanos == 0)
+            return;
+        Scope current = scope.get();
+        if (current.slots != null)
+            record(current.slots, current.base + stage.ordinal(), startedNanos);
+    }
+
+    public long startSample() {
+        return sampled() ? System.nanoTime() : 0;
+    }
+
+    public void record(Request request, Stage stage, long startedNanos) {
+        if (startedNanos == 0)
+            return;
+        record(slotsOf(request.getSecurityIsin()), RequestKind.of(request).ordinal() * STAGES + stage.ordinal(),
+                startedNanos);
+    }
+
+    private void record(Slot[] slots, int index, long startedNanos) {
+        long elapsed = Math.min(System.nanoTime() - startedNanos, HIGHEST_TRACKABLE_NANOS);
+        Slot slot = slots[index];
+        if (slot == null)
+            slot = slotAt(slots, index);
+        slot.recorder.recordValue(Math.max(elapsed, 0));
+    }
+
+    private Slot[] slotsOf(String isin) {
+        String key = isin == null ? OTHER_SECURITIES : isin;
+        Slot[] slots = slotsByIsin.get(key);
+        if (slots != null)
+            return slots;
+        if (slotsByIsin.size() >= MAX_SECURITIES)
+            key = OTHER_SECURITIES;
+        return slotsByIsin.computeIfAbsent(key, ignored -> new Slot[SLOTS]);
+    }
+
+    private Slot slotAt(Slot[] slots, int index) {
+        if (full && otherSlots[index] != null)
+            return otherSlots[index];
+        synchronized (this) {
+            if (slots[index] != null)
+                return slots[index];
+            if (slots != otherSlots && slotCount >= maxSlots) {
+                full = true;
+                slots = otherSlots;
+                if (slots[index] != null)
+                    return slots[index];
+            }
+            slots[index] = new Slot();
+            slotCount++;
+            return slots[index];
+        }
+    }
+
+    private synchronized void harvest() {
+        for (Slot[] slots : slotsByIsin.values()) {
+            for (Slot slot : slots) {
+                if (slot == null)
+                    continue;
+                slot.interval = slot.recorder.getIntervalHistogram(slot.interval);
+                slot.total.add(slot.interval);
+            }
+        }
+    }
+
+    @ManagedOperation(description = "Cumulative stage latency percentiles in microseconds")
+    public synchronized String report() {
+        harvest();
+        return format(false);
+    }
+
+    @ManagedOperation(description = "Cumulative latency percentile in microseconds for one security, request kind and stage")
+    public synchronized double percentile(String isin, String requestKind, String stage, double percentile) {
+        Histogram total = totalOf(isin, requestKind, stage);
+        return total == null ? 0 : total.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @ManagedOperation(description = "Number of samples recorded for one security, request kind and stage")
+    public synchronized long count(String isin, String requestKind, String stage) {
+        Histogram total = totalOf(isin, requestKind, stage);
+        return total == null ? 0 : total.getTotalCount();
+    }
+
+    private Histogram totalOf(String isin, String requestKind, String stage) {
+        harvest();
+        Slot[] slots = slotsByIsin.get(isin);
+        if (slots == null)
+            return null;
+        Slot slot = slots[RequestKind.valueOf(requestKind).ordinal() * STAGES + Stage.valueOf(stage).ordinal()];
+        return slot == null ? null : slot.total;
+    }
+
+    @ManagedOperation(description = "Discard all recorded latencies")
+    public synchronized void reset() {
+        harvest();
+        for (Slot[] slots : slotsByIsin.values())
+            for (Slot slot : slots)
+                if (slot != null)
+                    slot.total.reset();
+    }
+
+    private String format(boolean interval) {
+        StringBuilder report = new StringBuilder(String.format("%-12s %-13s %-13s %9s %9s %9s %9s %9s %9s %9s%n",
+                "security", "request", "stage", "count", "p50", "p90", "p99", "p99.9", "p99.99", "max"));
+        for (Map.Entry<String, Slot[]> entry : new TreeMap<>(slotsByIsin).entrySet()) {
+            Slot[] slots = entry.getValue();
+            for (int index = 0; index < SLOTS; index++) {
+                if (slots[index] == null)
+                    continue;
+                Histogram histogram = interval ? slots[index].interval : slots[index].total;
+                if (histogram == null || histogram.getTotalCount() == 0)
+                    continue;
+                report.append(String.format("%-12s %-13s %-13s %9d", entry.getKey(),
+                        RequestKind.values()[index / STAGES], Stage.values()[index % STAGES],
+                        histogram.getTotalCount()));
+                for (double percentile : PERCENTILES)
+                    report.append(String.format(" %9.2f", histogram.getValueAtPercentile(percentile) / 1000.0));
+                report.append(String.format(" %9.2f%n", histogram.getMaxValue() / 1000.0));
+            }
+        }
+        return report.toString();
+    }
+
+    private void dumpPeriodically() {
+        while (running) {
+            try {
+                TimeUnit.SECONDS.sleep(dumpSeconds);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            synchronized (this) {
+                harvest();
+                log.info("Stage latencies (us) since the previous report:\n" + format(true));
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled || dumpSeconds <= 0)
+            return;
+        dumper = new Thread(this::dumpPeriodically, "latency-dump");
+        dumper.setDaemon(true);
+        dumper.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (dumper != null)
+            dumper.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
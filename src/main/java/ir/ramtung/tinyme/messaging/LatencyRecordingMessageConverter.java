@@ -0,0 +1,32 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.request.Request;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+public class LatencyRecordingMessageConverter implements MessageConverter {
+    private final MessageConverter delegate;
+    private final LatencyMonitor latencyMonitor;
+
+    public LatencyRecordingMessageConverter(MessageConverter delegate, LatencyMonitor latencyMonitor) {
+        this.delegate = delegate;
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+        return delegate.toMessage(object, session);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+        long started = latencyMonitor.startSample();
+        Object object = delegate.fromMessage(message);
+        if (object instanceof Request request)
+            latencyMonitor.record(request, LatencyMonitor.Stage.DESERIALIZE, started);
+        return object;
+    }
+}
@@ -0,0 +1,76 @@
+package ir.ramtung.tinyme.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Component
+public class MatchingLanes implements SmartLifecycle {
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final ExecutorService[] lanes;
+    private volatile boolean running;
+
+    public MatchingLanes(@Value("${matchingLanes:0}") int laneCount) {
+        lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "matching-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+        }
+    }
+
+    public int size() {
+        return lanes.length;
+    }
+
+    public int laneOf(String securityIsin) {
+        return lanes.length == 0 ? 0 : Math.floorMod(securityIsin == null ? 0 : securityIsin.hashCode(), lanes.length);
+    }
+
+    public void execute(String securityIsin, Runnable task) {
+        if (lanes.length == 0) {
+            task.run();
+            return;
+        }
+        lanes[laneOf(securityIsin)].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                log.log(Level.SEVERE, "Request for " + securityIsin + " failed", ex);
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (ExecutorService lane : lanes)
+            lane.shutdown();
+        try {
+            for (ExecutorService lane : lanes)
+                lane.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
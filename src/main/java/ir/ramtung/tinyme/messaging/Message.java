@@ -25,4 +25,8 @@ public class Message {
     public static final String NEW_STOP_ORDER_IS_NOT_ALLOWED_IN_AUCTION = "New Stop price order is not allowed at auction state";
     public static final String UPDATE_STOP_ORDER_IS_NOT_ALLOWED_IN_AUCTION = "New Stop price order is not allowed at auction state";
     public static final String DELETE_STOP_ORDER_NOT_ALLOWED_IN_AUCTION = "Deleting stop order is not allowed in auction state";
+    public static final String EMPTY_BATCH = "Batch request has no legs";
+    public static final String BATCH_LEG_SECURITY_MISMATCH = "Batch legs must belong to the batch security";
+    public static final String BATCH_LEG_BROKER_MISMATCH = "Batch legs must belong to the batch broker";
+    public static final String REQUEST_NOT_JOURNALED = "Request could not be journaled";
 }
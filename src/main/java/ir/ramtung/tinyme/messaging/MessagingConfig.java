@@ -1,5 +1,6 @@
 package ir.ramtung.tinyme.messaging;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
@@ -8,11 +9,22 @@ import org.springframework.jms.support.converter.MessageType;
 
 @Configuration
 public class MessagingConfig {
+    public enum WireFormat {
+        JSON, BINARY
+    }
+
+    private static final String TYPE_ID_PROPERTY = "_type";
+
     @Bean
-    public MessageConverter jacksonJmsMessageConverter() {
-        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
-        converter.setTargetType(MessageType.TEXT);
-        converter.setTypeIdPropertyName("_type");
+    public MessageConverter jacksonJmsMessageConverter(@Value("${wireFormat:JSON}") WireFormat wireFormat,
+                                                       LatencyMonitor latencyMonitor) {
+        MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.setTargetType(MessageType.TEXT);
+        jsonConverter.setTypeIdPropertyName(TYPE_ID_PROPERTY);
+        MessageConverter converter = wireFormat == WireFormat.BINARY
+                ? new BinaryMessageConverter(jsonConverter, TYPE_ID_PROPERTY) : jsonConverter;
+        if (latencyMonitor.isEnabled())
+            return new LatencyRecordingMessageConverter(converter, latencyMonitor);
         return converter;
     }
 }
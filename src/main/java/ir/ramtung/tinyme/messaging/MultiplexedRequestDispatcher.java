@@ -0,0 +1,25 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.request.Request;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.stereotype.Component;
+
+import java.util.logging.Logger;
+
+@Component
+@ConditionalOnProperty(name = "requestDispatch", havingValue = "MULTIPLEXED")
+public class MultiplexedRequestDispatcher {
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final RequestRouter requestRouter;
+
+    public MultiplexedRequestDispatcher(RequestRouter requestRouter) {
+        this.requestRouter = requestRouter;
+    }
+
+    @JmsListener(destination = "${requestQueue}", concurrency = "${requestConsumers:1}")
+    public void receiveRequest(Request request) {
+        log.info("Received message: " + request);
+        requestRouter.route(request);
+    }
+}
@@ -1,41 +1,53 @@
 package ir.ramtung.tinyme.messaging;
 
+import ir.ramtung.tinyme.messaging.request.BatchEnterOrderRq;
 import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
-import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
-import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.stereotype.Component;
 
 import java.util.logging.Logger;
 
 @Component
+@ConditionalOnProperty(name = "requestDispatch", havingValue = "SELECTORS", matchIfMissing = true)
 public class RequestDispatcher {
     private final Logger log = Logger.getLogger(this.getClass().getName());
-    private final OrderHandler orderHandler;
-    private final ChangeMatchingStateHandler changeMatchingStateHandler;
+    private final RequestRouter requestRouter;
 
-    public RequestDispatcher(OrderHandler orderHandler, ChangeMatchingStateHandler changeMatchingStateHandler) {
-        this.orderHandler = orderHandler;
-        this.changeMatchingStateHandler = changeMatchingStateHandler;
+    public RequestDispatcher(RequestRouter requestRouter) {
+        this.requestRouter = requestRouter;
     }
 
     @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.EnterOrderRq'")
     public void receiveEnterOrderRq(EnterOrderRq enterOrderRq)  {
         log.info("Received message: " + enterOrderRq);
-        orderHandler.handleRequest(enterOrderRq);
+        requestRouter.route(enterOrderRq);
     }
 
     @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.DeleteOrderRq'")
     public void receiveDeleteOrderRq(DeleteOrderRq deleteOrderRq) {
         log.info("Received message: " + deleteOrderRq);
-        orderHandler.handleRequest(deleteOrderRq);
+        requestRouter.route(deleteOrderRq);
     }
 
     @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq'")
     public void receiveChangeMatchingSateRq(ChangeMatchingStateRq changeMatchingStateRq) {
         log.info("Received message: " + changeMatchingStateRq);
-        changeMatchingStateHandler.handleRequest(changeMatchingStateRq);
+        requestRouter.route(changeMatchingStateRq);
+    }
+
+    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.BatchEnterOrderRq'")
+    public void receiveBatchEnterOrderRq(BatchEnterOrderRq batchEnterOrderRq) {
+        log.info("Received message: " + batchEnterOrderRq);
+        requestRouter.route(batchEnterOrderRq);
+    }
+
+    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.MassCancelRq'")
+    public void receiveMassCancelRq(MassCancelRq massCancelRq) {
+        log.info("Received message: " + massCancelRq);
+        requestRouter.route(massCancelRq);
     }
 }
@@ -0,0 +1,209 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.ReqHandler;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.Request;
+import ir.ramtung.tinyme.repository.RequestJournal;
+import ir.ramtung.tinyme.repository.SnapshotStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Component
+@ManagedResource(objectName = "ir.ramtung.tinyme:name=RequestPipeline")
+public class RequestPipeline implements SmartLifecycle {
+    private static final int VALIDATION = 0;
+    private static final int MATCHING = 1;
+    private static final int PUBLISHING = 2;
+    private static final String[] STAGE_NAMES = {"validation", "matching", "publishing"};
+    private static final long NOT_JOURNALED = -1;
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final OrderHandler orderHandler;
+    private final ChangeMatchingStateHandler changeMatchingStateHandler;
+    private final EventPublisher eventPublisher;
+    private final RequestJournal requestJournal;
+    private final SnapshotStore snapshotStore;
+    private final LatencyMonitor latencyMonitor;
+    private final RequestRingBuffer ringBuffer;
+    private final Thread[] stages = new Thread[STAGE_NAMES.length];
+    private volatile boolean running;
+
+    @Autowired
+    public RequestPipeline(@Value("${requestPipelineSize:0}") int size, OrderHandler orderHandler,
+                           ChangeMatchingStateHandler changeMatchingStateHandler, EventPublisher eventPublisher,
+                           RequestJournal requestJournal, SnapshotStore snapshotStore,
+                           LatencyMonitor latencyMonitor) {
+        this.orderHandler = orderHandler;
+        this.changeMatchingStateHandler = changeMatchingStateHandler;
+        this.eventPublisher = eventPublisher;
+        this.requestJournal = requestJournal != null && requestJournal.isEnabled() ? requestJournal : null;
+        this.snapshotStore = this.requestJournal != null ? snapshotStore : null;
+        this.latencyMonitor = latencyMonitor != null && latencyMonitor.isEnabled() ? latencyMonitor : null;
+        this.ringBuffer = size == 0 ? null : new RequestRingBuffer(size, STAGE_NAMES.length);
+    }
+
+    public RequestPipeline(int size, OrderHandler orderHandler, ChangeMatchingStateHandler changeMatchingStateHandler,
+                           EventPublisher eventPublisher) {
+        this(size, orderHandler, changeMatchingStateHandler, eventPublisher, null, null, null);
+    }
+
+    public boolean isEnabled() {
+        return ringBuffer != null;
+    }
+
+    public void submit(Request request) {
+        ringBuffer.publish(request);
+    }
+
+    @ManagedAttribute
+    public long getQueueDepth() {
+        return isEnabled() ? ringBuffer.depth() : 0;
+    }
+
+    @ManagedAttribute
+    public long getValidationLag() {
+        return isEnabled() ? ringBuffer.lag(VALIDATION) : 0;
+    }
+
+    @ManagedAttribute
+    public long getMatchingLag() {
+        return isEnabled() ? ringBuffer.lag(MATCHING) : 0;
+    }
+
+    @ManagedAttribute
+    public long getPublishingLag() {
+        return isEnabled() ? ringBuffer.lag(PUBLISHING) : 0;
+    }
+
+    private ReqHandler handlerOf(Request request) {
+        return request instanceof ChangeMatchingStateRq ? changeMatchingStateHandler : orderHandler;
+    }
+
+    private void process(int stage, RequestRingBuffer.Slot slot) {
+        switch (stage) {
+            case VALIDATION -> {
+                if (requestJournal != null && !journal(slot))
+                    return;
+                slot.rejection = handlerOf(slot.request).prevalidate(slot.request);
+            }
+            case MATCHING -> {
+                boolean checkpointed = snapshotStore != null && slot.journalSequence != NOT_JOURNALED;
+                if (checkpointed)
+                    snapshotStore.beforeWrite(slot.request.getSecurityIsin());
+                eventPublisher.captureInto(slot.events);
+                try {
+                    handlerOf(slot.request).handleValidatedRequest(slot.request, slot.rejection);
+                } finally {
+                    eventPublisher.stopCapturing();
+                }
+                if (checkpointed && snapshotStore.countRequest())
+                    checkpoint(slot.journalSequence);
+            }
+            case PUBLISHING -> {
+                if (requestJournal != null && slot.journalSequence != NOT_JOURNALED)
+                    requestJournal.awaitDurable(slot.journalSequence);
+                boolean sampled = latencyMonitor != null && latencyMonitor.begin(slot.request);
+                try {
+                    for (Event event : slot.events)
+                        eventPublisher.send(event);
+                } finally {
+                    if (sampled)
+                        latencyMonitor.end();
+                }
+                slot.events.clear();
+                slot.request = null;
+                slot.rejection = null;
+            }
+        }
+    }
+
+    private boolean journal(RequestRingBuffer.Slot slot) {
+        try {
+            slot.journalSequence = requestJournal.append(slot.request);
+            return true;
+        } catch (RuntimeException ex) {
+            log.log(Level.SEVERE, "Request " + slot.request + " rejected: journal append failed", ex);
+            slot.journalSequence = NOT_JOURNALED;
+            slot.rejection = new InvalidRequestException(Message.REQUEST_NOT_JOURNALED);
+            return false;
+        }
+    }
+
+    private void checkpoint(long sequence) {
+        snapshotStore.checkpoint(sequence, () -> requestJournal.truncate(sequence));
+    }
+
+    private void runStage(int stage) {
+        int idleSpins = 0;
+        while (true) {
+            boolean upstreamDone = stage == 0 ? !running : !stages[stage - 1].isAlive();
+            if (upstreamDone && ringBuffer.lag(stage) == 0)
+                return;
+            long from = ringBuffer.processed(stage) + 1;
+            long to = ringBuffer.available(stage);
+            if (to < from) {
+                if (++idleSpins < 100)
+                    Thread.onSpinWait();
+                else
+                    LockSupport.parkNanos(50_000);
+                continue;
+            }
+            idleSpins = 0;
+            for (long sequence = from; sequence <= to; sequence++) {
+                RequestRingBuffer.Slot slot = ringBuffer.get(sequence);
+                try {
+                    process(stage, slot);
+                } catch (RuntimeException ex) {
+                    log.log(Level.SEVERE, "Request " + slot.request + " failed in " + STAGE_NAMES[stage], ex);
+                }
+            }
+            ringBuffer.markProcessed(stage, to);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!isEnabled())
+            return;
+        for (int stage = 0; stage < stages.length; stage++) {
+            int current = stage;
+            stages[stage] = new Thread(() -> runStage(current), "request-" + STAGE_NAMES[stage]);
+            stages[stage].start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            for (Thread stage : stages)
+                if (stage != null)
+                    stage.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
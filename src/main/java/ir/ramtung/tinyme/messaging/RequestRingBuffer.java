@@ -0,0 +1,74 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
+import ir.ramtung.tinyme.messaging.request.Request;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class RequestRingBuffer {
+    public static class Slot {
+        Request request;
+        InvalidRequestException rejection;
+        long journalSequence;
+        final ArrayList<Event> events = new ArrayList<>();
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong[] processed;
+
+    public RequestRingBuffer(int size, int stageCount) {
+        if (size <= 0 || Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("Ring buffer size must be a power of two");
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++)
+            slots[i] = new Slot();
+        mask = size - 1;
+        processed = new AtomicLong[stageCount];
+        for (int i = 0; i < stageCount; i++)
+            processed[i] = new AtomicLong(-1);
+    }
+
+    public synchronized void publish(Request request) {
+        long sequence = cursor.get() + 1;
+        while (sequence - slots.length > processed[processed.length - 1].get())
+            LockSupport.parkNanos(1_000);
+        Slot slot = get(sequence);
+        slot.request = request;
+        slot.rejection = null;
+        slot.events.clear();
+        cursor.set(sequence);
+    }
+
+    public Slot get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    public long available(int stage) {
+        return stage == 0 ? cursor.get() : processed[stage - 1].get();
+    }
+
+    public long processed(int stage) {
+        return processed[stage].get();
+    }
+
+    public void markProcessed(int stage, long sequence) {
+        processed[stage].set(sequence);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long depth() {
+        return cursor.get() - processed[processed.length - 1].get();
+    }
+
+    public long lag(int stage) {
+        return available(stage) - processed(stage);
+    }
+}
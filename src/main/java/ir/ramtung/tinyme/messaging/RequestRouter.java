@@ -0,0 +1,71 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.ReqHandler;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.Request;
+import ir.ramtung.tinyme.repository.RequestJournal;
+import ir.ramtung.tinyme.repository.SnapshotStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class RequestRouter {
+    private final OrderHandler orderHandler;
+    private final ChangeMatchingStateHandler changeMatchingStateHandler;
+    private final MatchingLanes matchingLanes;
+    private final RequestPipeline requestPipeline;
+    private final RequestJournal requestJournal;
+    private final SnapshotStore snapshotStore;
+    private final Lock journalOrder = new ReentrantLock();
+
+    @Autowired
+    public RequestRouter(OrderHandler orderHandler, ChangeMatchingStateHandler changeMatchingStateHandler,
+                         MatchingLanes matchingLanes, RequestPipeline requestPipeline, RequestJournal requestJournal,
+                         SnapshotStore snapshotStore) {
+        this.orderHandler = orderHandler;
+        this.changeMatchingStateHandler = changeMatchingStateHandler;
+        this.matchingLanes = matchingLanes;
+        this.requestPipeline = requestPipeline;
+        this.requestJournal = requestJournal != null && requestJournal.isEnabled() ? requestJournal : null;
+        if (this.requestJournal != null && matchingLanes.size() > 0)
+            throw new IllegalStateException("The request journal cannot be combined with matching lanes: lanes " +
+                    "share broker credit, so journal order would not be execution order");
+        this.snapshotStore = this.requestJournal != null ? snapshotStore : null;
+    }
+
+    public RequestRouter(OrderHandler orderHandler, ChangeMatchingStateHandler changeMatchingStateHandler,
+                         MatchingLanes matchingLanes, RequestPipeline requestPipeline) {
+        this(orderHandler, changeMatchingStateHandler, matchingLanes, requestPipeline, null, null);
+    }
+
+    public void route(Request request) {
+        if (requestPipeline.isEnabled()) {
+            requestPipeline.submit(request);
+            return;
+        }
+        ReqHandler handler = request instanceof ChangeMatchingStateRq ? changeMatchingStateHandler : orderHandler;
+        matchingLanes.execute(request.getSecurityIsin(), () -> {
+            if (requestJournal == null) {
+                handler.handleRequest(request);
+                return;
+            }
+            journalOrder.lock();
+            try {
+                long sequence = requestJournal.append(request);
+                requestJournal.awaitDurable(sequence);
+                if (snapshotStore != null)
+                    snapshotStore.beforeWrite(request.getSecurityIsin());
+                handler.handleRequest(request);
+                if (snapshotStore != null && snapshotStore.countRequest())
+                    snapshotStore.checkpoint(sequence, () -> requestJournal.truncate(sequence));
+            } finally {
+                journalOrder.unlock();
+            }
+        });
+    }
+}
@@ -10,6 +10,6 @@ public record TradeDTO(
     long sellOrderId) {
 
     public TradeDTO(Trade trade) {
-        this(trade.getSecurity().getIsin(), trade.getPrice(), trade.getQuantity(), trade.getBuy().getOrderId(), trade.getSell().getOrderId());
+        this(trade.getSecurity().getIsin(), trade.getPrice(), trade.getQuantity(), trade.getBuyOrderId(), trade.getSellOrderId());
     }
 }
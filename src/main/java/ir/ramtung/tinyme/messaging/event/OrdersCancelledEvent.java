@@ -0,0 +1,18 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrdersCancelledEvent extends Event {
+    private long requestId;
+    private String securityIsin;
+    private int orderCount;
+    private long totalQuantity;
+    private long refundedCredit;
+}
@@ -0,0 +1,35 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class BatchEnterOrderRq extends Request {
+    private long requestId;
+    private long brokerId;
+    private List<DeleteOrderRq> deleteLegs = new ArrayList<>();
+    private List<EnterOrderRq> enterLegs = new ArrayList<>();
+
+    public BatchEnterOrderRq(long requestId, String securityIsin, long brokerId, List<DeleteOrderRq> deleteLegs,
+                             List<EnterOrderRq> enterLegs) {
+        this.requestId = requestId;
+        this.securityIsin = securityIsin;
+        this.brokerId = brokerId;
+        setDeleteLegs(deleteLegs);
+        setEnterLegs(enterLegs);
+    }
+
+    public void setDeleteLegs(List<DeleteOrderRq> deleteLegs) {
+        this.deleteLegs = deleteLegs == null ? new ArrayList<>() : deleteLegs;
+    }
+
+    public void setEnterLegs(List<EnterOrderRq> enterLegs) {
+        this.enterLegs = enterLegs == null ? new ArrayList<>() : enterLegs;
+    }
+}
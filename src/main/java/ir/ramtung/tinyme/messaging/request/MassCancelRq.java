@@ -0,0 +1,24 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class MassCancelRq extends Request {
+    private long requestId;
+    private Long brokerId;
+    private Long shareholderId;
+    private Side side;
+
+    public MassCancelRq(long requestId, String securityIsin, Long brokerId, Long shareholderId, Side side) {
+        this.requestId = requestId;
+        this.securityIsin = securityIsin;
+        this.brokerId = brokerId;
+        this.shareholderId = shareholderId;
+        this.side = side;
+    }
+}
@@ -0,0 +1,155 @@
+package ir.ramtung.tinyme.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+public class CsvWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private boolean rowStarted;
+    private boolean committed;
+
+    public CsvWriter(Path target, String header) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        text(header);
+        endRow();
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            bytes(MIN_LONG);
+            return this;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        ensure(digits.length - start);
+        buffer.put(digits, start, digits.length - start);
+        return this;
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value != null)
+            text(value);
+        return this;
+    }
+
+    public CsvWriter field(LocalDateTime value) throws IOException {
+        separate();
+        ensure(29);
+        padded(value.getYear(), 4);
+        buffer.put((byte) '-');
+        padded(value.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        padded(value.getDayOfMonth(), 2);
+        buffer.put((byte) 'T');
+        padded(value.getHour(), 2);
+        buffer.put((byte) ':');
+        padded(value.getMinute(), 2);
+        buffer.put((byte) ':');
+        padded(value.getSecond(), 2);
+        if (value.getNano() != 0) {
+            buffer.put((byte) '.');
+            padded(value.getNano(), 9);
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        put((byte) '\n');
+        rowStarted = false;
+    }
+
+    public void commit() throws IOException {
+        drain();
+        channel.force(true);
+        channel.close();
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committed)
+            return;
+        channel.close();
+        Files.deleteIfExists(temporary);
+    }
+
+    private void separate() throws IOException {
+        if (rowStarted)
+            put((byte) ',');
+        rowStarted = true;
+    }
+
+    private void padded(int value, int width) {
+        for (int position = width - 1; position >= 0; position--) {
+            digits[position] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        buffer.put(digits, 0, width);
+    }
+
+    private void text(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80 || value.length() > BUFFER_SIZE) {
+                bytes(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++)
+            buffer.put((byte) value.charAt(i));
+    }
+
+    private void bytes(byte[] value) throws IOException {
+        int offset = 0;
+        while (offset < value.length) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), value.length - offset);
+            buffer.put(value, offset, length);
+            offset += length;
+        }
+    }
+
+    private void put(byte value) throws IOException {
+        ensure(1);
+        buffer.put(value);
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.remaining() < length)
+            drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
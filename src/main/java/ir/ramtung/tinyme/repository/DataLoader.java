@@ -3,6 +3,12 @@ package ir.ramtung.tinyme.repository;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.ReqHandler;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,13 +17,17 @@ import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.io.Reader;
 import java.time.LocalDateTime;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.StringJoiner;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 @Component
@@ -27,11 +37,23 @@ public class DataLoader {
     private final BrokerRepository brokerRepository;
     private final ShareholderRepository shareholderRepository;
     private final SecurityRepository securityRepository;
+    private final RequestJournal requestJournal;
+    private final SnapshotStore snapshotStore;
+    private final OrderHandler orderHandler;
+    private final ChangeMatchingStateHandler changeMatchingStateHandler;
+    private final EventPublisher eventPublisher;
 
-    public DataLoader(BrokerRepository brokerRepository, ShareholderRepository shareholderRepository, SecurityRepository securityRepository) {
+    public DataLoader(BrokerRepository brokerRepository, ShareholderRepository shareholderRepository, SecurityRepository securityRepository,
+                      RequestJournal requestJournal, SnapshotStore snapshotStore, OrderHandler orderHandler,
+                      ChangeMatchingStateHandler changeMatchingStateHandler, EventPublisher eventPublisher) {
         this.brokerRepository = brokerRepository;
         this.shareholderRepository = shareholderRepository;
         this.securityRepository = securityRepository;
+        this.requestJournal = requestJournal;
+        this.snapshotStore = snapshotStore;
+        this.orderHandler = orderHandler;
+        this.changeMatchingStateHandler = changeMatchingStateHandler;
+        this.eventPublisher = eventPublisher;
     }
 
     @Value("classpath:persistence/broker.csv")
@@ -47,22 +69,63 @@ public class DataLoader {
 
     @PostConstruct
     public void loadAll() throws Exception {
-        loadBrokers();
-        loadShareholders();
-        loadSecurities();
-        loadPositions();
-        loadOrderBook();
+        if (requestJournal.isEnabled() && snapshotStore.hasSnapshot()) {
+            replayJournal(snapshotStore.load());
+            return;
+        }
+        runInParallel(this::loadBrokers, this::loadShareholders, this::loadSecurities);
+        runInParallel(this::loadPositions, this::loadOrderBook);
+        if (requestJournal.isEnabled())
+            replayJournal(0);
     }
 
     @PreDestroy
     public void saveAll() throws Exception {
         System.out.print("Saving persistent data ...");
-        saveBrokers();
-        saveShareholdersAndPositions();
-        saveSecuritiesAndOrderBooks();
+        runInParallel(this::saveBrokers, this::saveShareholders, this::savePositions, this::saveSecurities,
+                this::saveOrderBooks);
+        if (requestJournal.isEnabled())
+            snapshotStore.write(requestJournal.getLastSequence());
         System.out.println(", done!");
     }
 
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static void runInParallel(Task... steps) throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>(steps.length);
+        for (Task step : steps)
+            tasks.add(() -> {
+                step.run();
+                return null;
+            });
+        for (Future<Void> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof Exception cause)
+                    throw cause;
+                throw ex;
+            }
+        }
+    }
+
+    private void replayJournal(long snapshotSequence) {
+        List<Event> discarded = new ArrayList<>();
+        eventPublisher.captureInto(discarded);
+        try {
+            long lastSequence = requestJournal.replay(snapshotSequence, request -> {
+                ReqHandler handler = request instanceof ChangeMatchingStateRq ? changeMatchingStateHandler : orderHandler;
+                handler.handleRequest(request);
+                discarded.clear();
+            });
+            log.info("Journal replayed from sequence " + snapshotSequence + " to " + lastSequence);
+        } finally {
+            eventPublisher.stopCapturing();
+        }
+    }
+
     private void loadBrokers() throws Exception {
         brokerRepository.clear();
       try (Reader reader = new FileReader(brokerCsvResource.getFile())) {
@@ -102,10 +165,13 @@ public class DataLoader {
             try (CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
                 String[] line;
                 while ((line = csvReader.readNext()) != null) {
+                    int tickSize = Integer.parseInt(line[1]);
+                    OrderBookMode orderBookMode = line.length > 3 ? OrderBookMode.valueOf(line[3]) : OrderBookMode.PRICE_TREE;
                     securityRepository.addSecurity(Security.builder()
                             .isin(line[0])
-                            .tickSize(Integer.parseInt(line[1]))
+                            .tickSize(tickSize)
                             .lotSize(Integer.parseInt(line[2]))
+                            .orderBook(new OrderBook(orderBookMode, tickSize))
                             .build());
                 }
             }
@@ -128,7 +194,7 @@ public class DataLoader {
     }
 
     private void loadOrderBook() throws Exception {
-        LinkedList<Order> orders = new LinkedList<>();
+        Map<Security, List<Order>> ordersBySecurity = new HashMap<>();
         try (Reader reader = new FileReader(orderBookCsvResource.getFile())) {
             try (CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
                 String[] line;
@@ -165,93 +231,99 @@ public class DataLoader {
                                 Integer.parseInt(line[9]),
                                 OrderStatus.QUEUED);
                     }
-                    orders.addFirst(order);
+                    ordersBySecurity.computeIfAbsent(security, ignored -> new ArrayList<>()).add(order);
                 }
             }
         }
-        Iterator<Order> it = orders.descendingIterator();
-        while (it.hasNext()) {
-            Order order = it.next();
-            order.getSecurity().getOrderBook().enqueue(order);
-        }
+        ordersBySecurity.entrySet().parallelStream()
+                .forEach(entry -> entry.getKey().getOrderBook().enqueueAll(entry.getValue()));
         log.info("Order Book loaded");
     }
 
     private void saveBrokers() throws Exception {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(brokerCsvResource.getFile()))) {
-            writer.println("brokerId,name,credit");
+        try (CsvWriter writer = new CsvWriter(brokerCsvResource.getFile().toPath(), "brokerId,name,credit")) {
             for (Broker broker : brokerRepository.allBrokers()) {
-                StringJoiner joiner = new StringJoiner(",");
-                joiner.add(String.valueOf(broker.getBrokerId()))
-                        .add(broker.getName())
-                        .add(String.valueOf(broker.getCredit()));
-                writer.println(joiner);
+                writer.field(broker.getBrokerId())
+                        .field(broker.getName())
+                        .field(broker.getCredit())
+                        .endRow();
             }
+            writer.commit();
         }
         log.info("Brokers saved");
     }
 
-    private void saveShareholdersAndPositions() throws Exception {
-        try (PrintWriter shareholderWriter = new PrintWriter(new FileWriter(shareholderCsvResource.getFile()))) {
-            shareholderWriter.println("shareholderId,name");
-            try (PrintWriter positionWriter = new PrintWriter(new FileWriter(positionCsvResource.getFile()))) {
-                positionWriter.println("shareholderId,isin,positions");
-                for (Shareholder shareholder : shareholderRepository.allShareholders()) {
-                    StringJoiner joiner = new StringJoiner(",");
-                    joiner.add(String.valueOf(shareholder.getShareholderId()))
-                            .add(shareholder.getName());
-                    shareholderWriter.println(joiner);
-                    for (var entry : shareholder.getPositions().entrySet()) {
-                        StringJoiner posJoiner = new StringJoiner(",");
-                        posJoiner.add(String.valueOf(shareholder.getShareholderId()))
-                                .add(entry.getKey().getIsin())
-                                .add(String.valueOf(entry.getValue()));
-                        positionWriter.println(posJoiner);
-                    }
-                }
+    private void saveShareholders() throws Exception {
+        try (CsvWriter writer = new CsvWriter(shareholderCsvResource.getFile().toPath(), "shareholderId,name")) {
+            for (Shareholder shareholder : shareholderRepository.allShareholders()) {
+                writer.field(shareholder.getShareholderId())
+                        .field(shareholder.getName())
+                        .endRow();
             }
+            writer.commit();
         }
-        log.info("Shareholders and Positions saved");
+        log.info("Shareholders saved");
     }
 
-    private void saveSecuritiesAndOrderBooks() throws Exception {
-        try (PrintWriter securityWriter = new PrintWriter(new FileWriter(securityCsvResource.getFile()))) {
-            securityWriter.println("isin,tickSize,lotSize");
-            try (PrintWriter orderBookWriter = new PrintWriter(new FileWriter(orderBookCsvResource.getFile()))) {
-                orderBookWriter.println("orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,status,peakSize,displayedQuantity");
-                for (Security security : securityRepository.allSecurities()) {
-                    StringJoiner joiner = new StringJoiner(",");
-                    joiner.add(security.getIsin())
-                            .add(String.valueOf(security.getTickSize()))
-                            .add(String.valueOf(security.getLotSize()));
-                    securityWriter.println(joiner);
-                    for (Order order : security.getOrderBook().getBuyQueue())
-                        orderBookWriter.println(getCSVString(order));
-                    for (Order order : security.getOrderBook().getSellQueue())
-                        orderBookWriter.println(getCSVString(order));
+    private void savePositions() throws Exception {
+        try (CsvWriter writer = new CsvWriter(positionCsvResource.getFile().toPath(), "shareholderId,isin,positions")) {
+            for (Shareholder shareholder : shareholderRepository.allShareholders()) {
+                for (var entry : shareholder.getPositions().entrySet()) {
+                    writer.field(shareholder.getShareholderId())
+                            .field(entry.getKey().getIsin())
+                            .field(entry.getValue())
+                            .endRow();
                 }
             }
+            writer.commit();
+        }
+        log.info("Positions saved");
+    }
+
+    private void saveSecurities() throws Exception {
+        try (CsvWriter writer = new CsvWriter(securityCsvResource.getFile().toPath(), "isin,tickSize,lotSize,orderBookMode")) {
+            for (Security security : securityRepository.allSecurities()) {
+                writer.field(security.getIsin())
+                        .field(security.getTickSize())
+                        .field(security.getLotSize())
+                        .field(security.getOrderBook().getMode().toString())
+                        .endRow();
+            }
+            writer.commit();
+        }
+        log.info("Securities saved");
+    }
+
+    private void saveOrderBooks() throws Exception {
+        try (CsvWriter writer = new CsvWriter(orderBookCsvResource.getFile().toPath(),
+                "orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,peakSize,displayedQuantity")) {
+            for (Security security : securityRepository.allSecurities()) {
+                for (Order order : security.getOrderBook().getBuyQueue())
+                    writeOrder(writer, order);
+                for (Order order : security.getOrderBook().getSellQueue())
+                    writeOrder(writer, order);
+            }
+            writer.commit();
         }
-        log.info("Securities and OrderBook saved");
+        log.info("OrderBook saved");
     }
 
-    private static String getCSVString(Order order) {
-        StringJoiner orderJoiner = new StringJoiner(",");
-        orderJoiner.add(String.valueOf(order.getOrderId()))
-                .add(order.getSecurity().getIsin())
-                .add(order.getSide().toString())
-                .add(String.valueOf(order.getQuantity()))
-                .add(String.valueOf(order.getPrice()))
-                .add(String.valueOf(order.getBroker().getBrokerId()))
-                .add(String.valueOf(order.getShareholder().getShareholderId()))
-                .add(order.getEntryTime().toString());
+    private static void writeOrder(CsvWriter writer, Order order) throws IOException {
+        writer.field(order.getOrderId())
+                .field(order.getSecurity().getIsin())
+                .field(order.getSide().toString())
+                .field(order.getTotalQuantity())
+                .field(order.getPrice())
+                .field(order.getBroker().getBrokerId())
+                .field(order.getShareholder().getShareholderId())
+                .field(order.getEntryTime());
         if (order instanceof IcebergOrder icebergOrder) {
-            orderJoiner.add(String.valueOf(icebergOrder.getPeakSize()))
-                    .add(String.valueOf(icebergOrder.getDisplayedQuantity()));
+            writer.field(icebergOrder.getPeakSize())
+                    .field(icebergOrder.getDisplayedQuantity());
         } else {
-            orderJoiner.add("0").add("0");
+            writer.field(0).field(0);
         }
-        return orderJoiner.toString();
+        writer.endRow();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,332 @@
+package ir.ramtung.tinyme.repository;
+
+import ir.ramtung.tinyme.messaging.BinaryCodec;
+import ir.ramtung.tinyme.messaging.request.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+@Component
+public class RequestJournal implements SmartLifecycle {
+    public enum FsyncPolicy {
+        NONE,
+        GROUP,
+        ALWAYS
+    }
+
+    private static final int RECORD_HEADER_LENGTH = 16;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final int groupCommitSize;
+    private final long groupCommitNanos;
+    private final BinaryCodec codec = new BinaryCodec();
+    private final CRC32C crc = new CRC32C();
+    private final Object durability = new Object();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence = 1;
+    private volatile long writtenSequence;
+    private volatile long durableSequence;
+    private MappedByteBuffer flushedSegment;
+    private int flushedPosition;
+    private Thread flusher;
+    private volatile boolean running;
+
+    public RequestJournal(@Value("${journalSegmentSize:0}") int segmentSize,
+                          @Value("${journalDir:journal}") String directory,
+                          @Value("${journalFsync:GROUP}") FsyncPolicy fsyncPolicy,
+                          @Value("${journalGroupCommitSize:64}") int groupCommitSize,
+                          @Value("${journalGroupCommitMicros:0}") long groupCommitMicros) {
+        this.segmentSize = segmentSize;
+        this.directory = Path.of(directory);
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitSize = groupCommitSize;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+    }
+
+    public boolean isEnabled() {
+        return segmentSize > 0;
+    }
+
+    public long getLastSequence() {
+        return writtenSequence;
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public synchronized long append(Request request) {
+        int length = encode(request);
+        if (segment == null || segment.remaining() < RECORD_HEADER_LENGTH + length)
+            roll(length);
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        int start = segment.position();
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.putLong(nextSequence);
+        segment.put(scratch.array(), 0, length);
+        long sequence = nextSequence++;
+        writtenSequence = sequence;
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            segment.force(start, segment.position() - start);
+            durableSequence = sequence;
+        } else if (fsyncPolicy == FsyncPolicy.NONE)
+            durableSequence = sequence;
+        else if (sequence - durableSequence == 1)
+            synchronized (durability) {
+                durability.notifyAll();
+            }
+        else if (sequence - durableSequence == groupCommitSize)
+            LockSupport.unpark(flusher);
+        return sequence;
+    }
+
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence)
+            return;
+        synchronized (durability) {
+            while (durableSequence < sequence) {
+                try {
+                    durability.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public long replay(long afterSequence, Consumer<Request> consumer) {
+        long lastSequence = afterSequence;
+        for (Path path : segments()) {
+            try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0, reader.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                int length;
+                while ((length = validRecordLength(buffer)) >= 0) {
+                    int start = buffer.position();
+                    long sequence = buffer.getLong(start + 8);
+                    buffer.position(start + RECORD_HEADER_LENGTH + length);
+                    if (sequence <= lastSequence)
+                        continue;
+                    byte[] payload = new byte[length];
+                    buffer.get(start + RECORD_HEADER_LENGTH, payload);
+                    consumer.accept((Request) codec.decode(ByteBuffer.wrap(payload)));
+                    lastSequence = sequence;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return lastSequence;
+    }
+
+    public synchronized void truncate(long coveredSequence) {
+        List<Path> segments = segments();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequenceOf(segments.get(i + 1)) > coveredSequence + 1)
+                return;
+            try {
+                Files.delete(segments.get(i));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int validRecordLength(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_HEADER_LENGTH)
+            return -1;
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - RECORD_HEADER_LENGTH)
+            return -1;
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(start + RECORD_HEADER_LENGTH, length));
+        return (int) checksum.getValue() == buffer.getInt(start + 4) ? length : -1;
+    }
+
+    private int encode(Request request) {
+        while (true) {
+            try {
+                scratch.clear();
+                return codec.encode(request, scratch);
+            } catch (BufferOverflowException ex) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private List<Path> segments() {
+        if (!Files.isDirectory(directory))
+            return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void roll(int recordLength) {
+        try {
+            if (segment != null) {
+                if (fsyncPolicy != FsyncPolicy.NONE)
+                    segment.force();
+                channel.close();
+            }
+            Files.createDirectories(directory);
+            Path path = directory.resolve(String.format("%020d%s", nextSequence, SEGMENT_SUFFIX));
+            map(path, Math.max(segmentSize, RECORD_HEADER_LENGTH + recordLength));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void map(Path path, long size) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private synchronized void recover() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty())
+            return;
+        Path last = segments.get(segments.size() - 1);
+        map(last, segmentSize);
+        nextSequence = firstSequenceOf(last);
+        int length;
+        while ((length = validRecordLength(segment)) >= 0) {
+            nextSequence = segment.getLong(segment.position() + 8) + 1;
+            segment.position(segment.position() + RECORD_HEADER_LENGTH + length);
+        }
+        for (int i = segment.position(); i < segment.limit(); i++)
+            segment.put(i, (byte) 0);
+        writtenSequence = nextSequence - 1;
+        durableSequence = writtenSequence;
+    }
+
+    private void markDurable(long sequence) {
+        durableSequence = sequence;
+        synchronized (durability) {
+            durability.notifyAll();
+        }
+    }
+
+    private void flushLoop() {
+        while (running || durableSequence < writtenSequence) {
+            synchronized (durability) {
+                try {
+                    while (durableSequence == writtenSequence && running)
+                        durability.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (groupCommitNanos > 0 && writtenSequence - durableSequence < groupCommitSize && running)
+                LockSupport.parkNanos(groupCommitNanos);
+            flush();
+        }
+    }
+
+    private void flush() {
+        MappedByteBuffer target;
+        int from;
+        int to;
+        long sequence;
+        synchronized (this) {
+            sequence = writtenSequence;
+            if (sequence == durableSequence)
+                return;
+            target = segment;
+            from = target == flushedSegment ? flushedPosition : 0;
+            to = target.position();
+        }
+        if (to > from)
+            target.force(from, to - from);
+        flushedSegment = target;
+        flushedPosition = to;
+        markDurable(sequence);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!isEnabled())
+            return;
+        try {
+            recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (fsyncPolicy == FsyncPolicy.GROUP) {
+            flusher = new Thread(this::flushLoop, "journal-flusher");
+            flusher.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            synchronized (durability) {
+                durability.notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            try {
+                if (segment != null) {
+                    segment.force();
+                    channel.close();
+                    segment = null;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 3;
+    }
+}
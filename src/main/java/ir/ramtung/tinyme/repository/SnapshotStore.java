@@ -0,0 +1,377 @@
+package ir.ramtung.tinyme.repository;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+@Component
+@ManagedResource(objectName = "ir.ramtung.tinyme:name=SnapshotStore")
+public class SnapshotStore {
+    private static final int MAGIC = 0x544D534E;
+    private static final int VERSION = 2;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte REGULAR_ORDER = 0;
+    private static final byte ICEBERG_ORDER = 1;
+    private static final byte STOP_LIMIT_ORDER = 2;
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final BrokerRepository brokerRepository;
+    private final ShareholderRepository shareholderRepository;
+    private final SecurityRepository securityRepository;
+    private final Path directory;
+    private final long interval;
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    private final AtomicLong captureStallNanos = new AtomicLong();
+    private volatile Checkpoint checkpoint;
+    private volatile long lastPauseNanos;
+    private volatile long lastCaptureStallNanos;
+
+    public SnapshotStore(BrokerRepository brokerRepository, ShareholderRepository shareholderRepository,
+                         SecurityRepository securityRepository, @Value("${snapshotDir:snapshots}") String directory,
+                         @Value("${snapshotInterval:0}") long interval) {
+        this.brokerRepository = brokerRepository;
+        this.shareholderRepository = shareholderRepository;
+        this.securityRepository = securityRepository;
+        this.directory = Path.of(directory);
+        this.interval = interval;
+    }
+
+    public boolean countRequest() {
+        return interval > 0 && sinceSnapshot.incrementAndGet() % interval == 0;
+    }
+
+    public boolean hasSnapshot() {
+        return !snapshots().isEmpty();
+    }
+
+    @ManagedAttribute
+    public long getLastCheckpointPauseMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastPauseNanos);
+    }
+
+    @ManagedAttribute
+    public long getLastCheckpointCaptureStallMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastCaptureStallNanos);
+    }
+
+    public boolean isCheckpointing() {
+        return checkpoint != null;
+    }
+
+    public void write(long sequence) throws IOException {
+        new Checkpoint(sequence).complete();
+    }
+
+    public boolean checkpoint(long sequence, Runnable onWritten) {
+        if (checkpoint != null)
+            return false;
+        long start = System.nanoTime();
+        Checkpoint started = new Checkpoint(sequence);
+        checkpoint = started;
+        captureStallNanos.set(0);
+        lastPauseNanos = System.nanoTime() - start;
+        Thread writer = new Thread(() -> {
+            try {
+                started.complete();
+                onWritten.run();
+            } catch (IOException | RuntimeException ex) {
+                log.log(Level.SEVERE, "Checkpoint at sequence " + sequence + " failed", ex);
+            } finally {
+                checkpoint = null;
+            }
+        }, "checkpoint-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return true;
+    }
+
+    public void beforeWrite(String isin) {
+        Checkpoint current = checkpoint;
+        if (current != null)
+            current.captureBeforeWrite(isin);
+    }
+
+    private final class Checkpoint {
+        private final long sequence;
+        private final byte[] brokers;
+        private final Map<String, SecurityImage> securities = new LinkedHashMap<>();
+
+        Checkpoint(long sequence) {
+            this.sequence = sequence;
+            this.brokers = encode(SnapshotStore.this::writeBrokers);
+            for (Security security : securityRepository.allSecurities())
+                securities.put(security.getIsin(), new SecurityImage(security));
+        }
+
+        void captureBeforeWrite(String isin) {
+            SecurityImage image = securities.get(isin);
+            if (image == null || image.bytes != null)
+                return;
+            long start = System.nanoTime();
+            image.capture();
+            captureStallNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+        }
+
+        void complete() throws IOException {
+            Files.createDirectories(directory);
+            Path target = directory.resolve(String.format("%020d%s", sequence, SNAPSHOT_SUFFIX));
+            Path temporary = directory.resolve(target.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temporary.toFile()), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sequence);
+                out.write(brokers);
+                writeShareholders(out);
+                out.writeInt(securities.size());
+                for (SecurityImage image : securities.values())
+                    out.write(image.capture());
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (Path older : snapshots())
+                if (older.getFileName().toString().compareTo(target.getFileName().toString()) < 0)
+                    Files.delete(older);
+            lastCaptureStallNanos = captureStallNanos.get();
+            log.info("Snapshot written at sequence " + sequence + ", pause " + getLastCheckpointPauseMicros()
+                    + " us, capture stall " + getLastCheckpointCaptureStallMicros() + " us");
+        }
+    }
+
+    private final class SecurityImage {
+        private final Security security;
+        private volatile byte[] bytes;
+
+        SecurityImage(Security security) {
+            this.security = security;
+        }
+
+        synchronized byte[] capture() {
+            if (bytes == null)
+                bytes = encode(out -> writeSecurity(out, security));
+            return bytes;
+        }
+    }
+
+    private interface Section {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(Section section) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            section.writeTo(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    public long load() throws IOException {
+        List<Path> snapshots = snapshots();
+        Path latest = snapshots.get(snapshots.size() - 1);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(latest.toFile()), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Unsupported snapshot " + latest);
+            long sequence = in.readLong();
+            readBrokers(in);
+            readShareholders(in);
+            readSecurities(in);
+            log.info("Snapshot loaded at sequence " + sequence);
+            return sequence;
+        }
+    }
+
+    private List<Path> snapshots() {
+        if (!Files.isDirectory(directory))
+            return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX)).sorted().toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeBrokers(DataOutputStream out) throws IOException {
+        List<Broker> brokers = new ArrayList<>();
+        brokerRepository.allBrokers().forEach(brokers::add);
+        out.writeInt(brokers.size());
+        for (Broker broker : brokers) {
+            out.writeLong(broker.getBrokerId());
+            writeString(out, broker.getName());
+            out.writeLong(broker.getCredit());
+        }
+    }
+
+    private void readBrokers(DataInputStream in) throws IOException {
+        brokerRepository.clear();
+        for (int count = in.readInt(); count > 0; count--)
+            brokerRepository.addBroker(Broker.builder()
+                    .brokerId(in.readLong())
+                    .name(readString(in))
+                    .credit(in.readLong())
+                    .build());
+    }
+
+    private void writeShareholders(DataOutputStream out) throws IOException {
+        List<Shareholder> shareholders = new ArrayList<>();
+        shareholderRepository.allShareholders().forEach(shareholders::add);
+        out.writeInt(shareholders.size());
+        for (Shareholder shareholder : shareholders) {
+            out.writeLong(shareholder.getShareholderId());
+            writeString(out, shareholder.getName());
+        }
+    }
+
+    private void readShareholders(DataInputStream in) throws IOException {
+        shareholderRepository.clear();
+        for (int count = in.readInt(); count > 0; count--)
+            shareholderRepository.addShareholder(Shareholder.builder()
+                    .shareholderId(in.readLong())
+                    .name(readString(in))
+                    .build());
+    }
+
+    private void writeSecurity(DataOutputStream out, Security security) throws IOException {
+        writeString(out, security.getIsin());
+        out.writeInt(security.getTickSize());
+        out.writeInt(security.getLotSize());
+        out.writeByte(security.getOrderBook().getMode().ordinal());
+        out.writeByte(security.getState().ordinal());
+        out.writeInt(security.getLastTradePrice());
+        CustomPair openingPrice = security.getPublishedOpeningPrice();
+        out.writeBoolean(openingPrice != null);
+        if (openingPrice != null) {
+            out.writeInt(openingPrice.getFirst());
+            out.writeInt(openingPrice.getSecond());
+        }
+        writeOrders(out, security.getOrderBook().getBuyQueue());
+        writeOrders(out, security.getOrderBook().getSellQueue());
+        writeOrders(out, security.getStopOrderBook().getBuyQueue());
+        writeOrders(out, security.getStopOrderBook().getSellQueue());
+        List<Shareholder> holders = new ArrayList<>();
+        for (Shareholder shareholder : shareholderRepository.allShareholders())
+            if (shareholder.getPositions().containsKey(security))
+                holders.add(shareholder);
+        out.writeInt(holders.size());
+        for (Shareholder shareholder : holders) {
+            out.writeLong(shareholder.getShareholderId());
+            out.writeInt(shareholder.getPositions().getOrDefault(security, 0));
+        }
+    }
+
+    private void readSecurities(DataInputStream in) throws IOException {
+        securityRepository.clear();
+        for (int count = in.readInt(); count > 0; count--) {
+            String isin = readString(in);
+            int tickSize = in.readInt();
+            int lotSize = in.readInt();
+            OrderBookMode mode = OrderBookMode.values()[in.readByte()];
+            MatchingState state = MatchingState.values()[in.readByte()];
+            int lastTradePrice = in.readInt();
+            CustomPair openingPrice = in.readBoolean() ? new CustomPair(in.readInt(), in.readInt()) : null;
+            Security security = Security.builder()
+                    .isin(isin)
+                    .tickSize(tickSize)
+                    .lotSize(lotSize)
+                    .orderBook(new OrderBook(mode, tickSize))
+                    .state(state)
+                    .lastTradePrice(lastTradePrice)
+                    .publishedOpeningPrice(openingPrice)
+                    .build();
+            securityRepository.addSecurity(security);
+            for (int book = 0; book < 4; book++)
+                for (int orders = in.readInt(); orders > 0; orders--) {
+                    Order order = readOrder(in, security);
+                    if (order instanceof StopLimitOrder stopLimitOrder)
+                        security.getStopOrderBook().restore(stopLimitOrder);
+                    else
+                        security.getOrderBook().restore(order);
+                }
+            for (int holders = in.readInt(); holders > 0; holders--)
+                shareholderRepository.findShareholderById(in.readLong()).getPositions().put(security, in.readInt());
+        }
+    }
+
+    private void writeOrders(DataOutputStream out, List<? extends Order> orders) throws IOException {
+        out.writeInt(orders.size());
+        for (Order order : orders) {
+            if (order instanceof IcebergOrder)
+                out.writeByte(ICEBERG_ORDER);
+            else if (order instanceof StopLimitOrder)
+                out.writeByte(STOP_LIMIT_ORDER);
+            else
+                out.writeByte(REGULAR_ORDER);
+            out.writeLong(order.getOrderId());
+            out.writeByte(order.getSide().ordinal());
+            out.writeInt(order.getTotalQuantity());
+            out.writeInt(order.getPrice());
+            out.writeLong(order.getBroker().getBrokerId());
+            out.writeLong(order.getShareholder().getShareholderId());
+            out.writeLong(order.getEntryTime().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(order.getEntryTime().getNano());
+            out.writeByte(order.getStatus().ordinal());
+            out.writeInt(order.getMinimumExecutionQuantity());
+            out.writeBoolean(order.isMinimumQuantityExecuted());
+            if (order instanceof IcebergOrder icebergOrder) {
+                out.writeInt(icebergOrder.getPeakSize());
+                out.writeInt(icebergOrder.getDisplayedQuantity());
+            } else if (order instanceof StopLimitOrder stopLimitOrder) {
+                out.writeInt(stopLimitOrder.getStopPrice());
+                out.writeLong(stopLimitOrder.getRequestId());
+            }
+        }
+    }
+
+    private Order readOrder(DataInputStream in, Security security) throws IOException {
+        byte kind = in.readByte();
+        long orderId = in.readLong();
+        Side side = Side.values()[in.readByte()];
+        int quantity = in.readInt();
+        int price = in.readInt();
+        Broker broker = brokerRepository.findBrokerById(in.readLong());
+        Shareholder shareholder = shareholderRepository.findShareholderById(in.readLong());
+        LocalDateTime entryTime = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        OrderStatus status = OrderStatus.values()[in.readByte()];
+        int minimumExecutionQuantity = in.readInt();
+        boolean minimumQuantityExecuted = in.readBoolean();
+        return switch (kind) {
+            case ICEBERG_ORDER -> new IcebergOrder(orderId, security, side, quantity, price, broker, shareholder,
+                    entryTime, in.readInt(), in.readInt(), status, minimumExecutionQuantity, minimumQuantityExecuted);
+            case STOP_LIMIT_ORDER -> new StopLimitOrder(orderId, security, side, quantity, price, broker, shareholder,
+                    entryTime, in.readInt(), status, in.readLong());
+            default -> new Order(orderId, security, side, quantity, price, broker, shareholder, entryTime, status,
+                    minimumExecutionQuantity, minimumQuantityExecuted);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,73 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+    private static final int TICK_SIZE = 10;
+
+    @Param({"1000000"})
+    int orders;
+
+    @Param({"PRICE_TREE", "TICK_ARRAY"})
+    OrderBookMode mode;
+
+    private List<Order> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Security security = Security.builder().isin("ABC").tickSize(TICK_SIZE).build();
+        Broker broker = Broker.builder().brokerId(1).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Random random = new Random(17);
+        batch = new ArrayList<>(orders);
+        for (int id = 0; id < orders; id++) {
+            Side side = id % 2 == 0 ? Side.BUY : Side.SELL;
+            int offset = random.nextInt(200) * TICK_SIZE;
+            int price = side == Side.BUY ? 15000 - offset : 15010 + offset;
+            batch.add(new Order(id, security, side, 100, price, broker, shareholder, start.plusNanos(id),
+                    OrderStatus.QUEUED, 0, true));
+        }
+        Collections.shuffle(batch, random);
+    }
+
+    @Benchmark
+    public OrderBook sortThenEnqueueEach() {
+        List<Order> sorted = new ArrayList<>(batch);
+        sorted.sort(Comparator.comparing(Order::getSide)
+                .thenComparingInt(order -> order.getSide() == Side.BUY ? -order.getPrice() : order.getPrice()));
+        OrderBook orderBook = new OrderBook(mode, TICK_SIZE);
+        for (Order order : sorted)
+            orderBook.enqueue(order);
+        return orderBook;
+    }
+
+    @Benchmark
+    public OrderBook enqueueAll() {
+        OrderBook orderBook = new OrderBook(mode, TICK_SIZE);
+        orderBook.enqueueAll(batch);
+        return orderBook;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BulkLoadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
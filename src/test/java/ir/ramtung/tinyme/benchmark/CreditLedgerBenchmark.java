@@ -0,0 +1,104 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Shareholder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreditLedgerBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final long ORDER_VALUE = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        Broker broker;
+        LockedBroker lockedBroker;
+        Shareholder shareholder;
+        Security[] securities;
+        final AtomicInteger nextLane = new AtomicInteger();
+
+        @Setup
+        public void setup() {
+            broker = Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 2).build();
+            lockedBroker = new LockedBroker(Long.MAX_VALUE / 2);
+            shareholder = Shareholder.builder().shareholderId(1).build();
+            securities = new Security[THREAD_COUNTS[THREAD_COUNTS.length - 1]];
+            for (int i = 0; i < securities.length; i++) {
+                securities[i] = Security.builder().isin("SEC" + i).build();
+                shareholder.incPosition(securities[i], 1_000_000);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lane {
+        Security security;
+
+        @Setup
+        public void setup(Ledger ledger) {
+            security = ledger.securities[ledger.nextLane.getAndIncrement() % ledger.securities.length];
+        }
+    }
+
+    static class LockedBroker {
+        private long credit;
+
+        LockedBroker(long credit) {
+            this.credit = credit;
+        }
+
+        synchronized boolean tryReserveCredit(long amount) {
+            if (credit < amount)
+                return false;
+            credit -= amount;
+            return true;
+        }
+
+        synchronized void increaseCreditBy(long amount) {
+            credit += amount;
+        }
+    }
+
+    @Benchmark
+    public boolean reserveAndReleaseCredit(Ledger ledger) {
+        boolean reserved = ledger.broker.tryReserveCredit(ORDER_VALUE);
+        ledger.broker.increaseCreditBy(ORDER_VALUE);
+        return reserved;
+    }
+
+    @Benchmark
+    public boolean reserveAndReleaseLockedCredit(Ledger ledger) {
+        boolean reserved = ledger.lockedBroker.tryReserveCredit(ORDER_VALUE);
+        ledger.lockedBroker.increaseCreditBy(ORDER_VALUE);
+        return reserved;
+    }
+
+    @Benchmark
+    public boolean tradePositionsOnOwnSecurity(Ledger ledger, Lane lane) {
+        ledger.shareholder.decPosition(lane.security, 1);
+        ledger.shareholder.incPosition(lane.security, 1);
+        return ledger.shareholder.hasEnoughPositionsOn(lane.security, 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(CreditLedgerBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
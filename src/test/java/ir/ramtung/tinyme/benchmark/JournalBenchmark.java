@@ -0,0 +1,157 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Shareholder;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.RequestControl;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.RequestPipeline;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.RequestJournal;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    @State(Scope.Benchmark)
+    public static class Journal {
+        @Param({"OFF", "NONE", "GROUP", "ALWAYS"})
+        String fsync;
+        RequestJournal journal;
+        Path directory;
+        final AtomicInteger nextLane = new AtomicInteger();
+
+        @Setup
+        public void setup() throws IOException {
+            if (fsync.equals("OFF"))
+                return;
+            directory = Files.createTempDirectory("journal-benchmark");
+            journal = new RequestJournal(64 * 1024 * 1024, directory.toString(),
+                    RequestJournal.FsyncPolicy.valueOf(fsync), 64, 0);
+            journal.start();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            if (journal == null)
+                return;
+            journal.stop();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.delete(path);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lane {
+        OrderHandler orderHandler;
+        String isin;
+        long nextId;
+
+        @Setup
+        public void setup(Journal journal) {
+            isin = "SEC" + journal.nextLane.getAndIncrement();
+            SecurityRepository securityRepository = new SecurityRepository();
+            BrokerRepository brokerRepository = new BrokerRepository();
+            ShareholderRepository shareholderRepository = new ShareholderRepository();
+            Security security = Security.builder().isin(isin).build();
+            securityRepository.addSecurity(security);
+            brokerRepository.addBroker(Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 2).build());
+            Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+            shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+            shareholderRepository.addShareholder(shareholder);
+            EventPublisher eventPublisher = new EventPublisher(null) {
+                @Override
+                public void publish(Event event) {
+                }
+            };
+            orderHandler = new OrderHandler(securityRepository, brokerRepository, shareholderRepository,
+                    eventPublisher, new ContinuousMatcher(), new AuctionMatcher(),
+                    new RequestControl(securityRepository, brokerRepository, shareholderRepository));
+        }
+
+        EnterOrderRq nextRequest() {
+            long id = ++nextId;
+            return EnterOrderRq.createNewOrderRq(id, isin, id, LocalDateTime.now(), id % 2 == 0 ? Side.SELL : Side.BUY,
+                    100, 15000, 1, 1, 0, 0, 0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+        RequestPipeline pipeline;
+        Lane lane;
+
+        @Setup
+        public void setup(Journal journal) {
+            lane = new Lane();
+            lane.setup(journal);
+            EventPublisher eventPublisher = new EventPublisher(null) {
+                @Override
+                public void send(Event event) {
+                }
+            };
+            pipeline = new RequestPipeline(1024, lane.orderHandler, null, eventPublisher, journal.journal, null, null);
+            pipeline.start();
+        }
+
+        @TearDown
+        public void tearDown() {
+            pipeline.stop();
+        }
+
+        synchronized EnterOrderRq nextRequest() {
+            return lane.nextRequest();
+        }
+    }
+
+    @Benchmark
+    public void pipelinedRequest(Pipeline pipeline) {
+        pipeline.pipeline.submit(pipeline.nextRequest());
+    }
+
+    @Benchmark
+    public void handleRequest(Journal journal, Lane lane) {
+        EnterOrderRq request = lane.nextRequest();
+        if (journal.journal != null)
+            journal.journal.awaitDurable(journal.journal.append(request));
+        lane.orderHandler.handleRequest(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(JournalBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
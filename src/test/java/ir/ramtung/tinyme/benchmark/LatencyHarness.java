@@ -0,0 +1,343 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.TinyMeApplication;
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Shareholder;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.messaging.request.Request;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class LatencyHarness {
+    private static final int MID_PRICE = 10_000;
+    private static final int BROKERS = 10;
+    private static final int SHAREHOLDERS = 100;
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    enum Kind {
+        NEW, UPDATE, DELETE, TOGGLE
+    }
+
+    private final int rate;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int securities;
+    private final int window;
+    private final int[] mix;
+    private final Random random = new Random(42);
+
+    private final long[] intended;
+    private final long[] sent;
+    private final Kind[] kinds;
+    private final boolean[] completed;
+    private final AtomicInteger completions = new AtomicInteger();
+    private final Map<String, ArrayDeque<Integer>> pendingToggles = new HashMap<>();
+    private final EnumMap<Kind, Histogram> corrected = new EnumMap<>(Kind.class);
+    private final EnumMap<Kind, Histogram> uncorrected = new EnumMap<>(Kind.class);
+    private final List<long[]> liveOrders = new ArrayList<>();
+    private final MatchingState[] states;
+    private volatile int firstMeasured = Integer.MAX_VALUE;
+    private volatile long lastCompletion;
+    private int rejected;
+    private int sentCount;
+
+    LatencyHarness(Map<String, String> options) {
+        rate = Integer.parseInt(options.getOrDefault("rate", "20000"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        securities = Integer.parseInt(options.getOrDefault("securities", "8"));
+        window = Integer.parseInt(options.getOrDefault("window", "10000"));
+        mix = Arrays.stream(options.getOrDefault("mix", "70,15,10,5").split(",")).mapToInt(Integer::parseInt).toArray();
+        if (mix.length != Kind.values().length)
+            throw new IllegalArgumentException("mix needs new,update,delete,toggle weights");
+        int capacity = rate > 0 ? rate * (warmupSeconds + durationSeconds)
+                : Integer.parseInt(options.getOrDefault("maxRequests", "5000000"));
+        intended = new long[capacity + 1];
+        sent = new long[capacity + 1];
+        kinds = new Kind[capacity + 1];
+        completed = new boolean[capacity + 1];
+        states = new MatchingState[securities];
+        Arrays.fill(states, MatchingState.CONTINUOUS);
+        for (Kind kind : Kind.values()) {
+            corrected.put(kind, new Histogram(HIGHEST_TRACKABLE_NANOS, 3));
+            uncorrected.put(kind, new Histogram(HIGHEST_TRACKABLE_NANOS, 3));
+        }
+        for (int i = 0; i < securities; i++)
+            pendingToggles.put(isin(i), new ArrayDeque<>());
+    }
+
+    private static String isin(int index) {
+        return "LT" + index;
+    }
+
+    void seed(ConfigurableApplicationContext context) {
+        SecurityRepository securityRepository = context.getBean(SecurityRepository.class);
+        BrokerRepository brokerRepository = context.getBean(BrokerRepository.class);
+        ShareholderRepository shareholderRepository = context.getBean(ShareholderRepository.class);
+        List<Security> seeded = new ArrayList<>();
+        for (int i = 0; i < securities; i++) {
+            Security security = Security.builder().isin(isin(i)).lastTradePrice(MID_PRICE).build();
+            securityRepository.addSecurity(security);
+            seeded.add(security);
+        }
+        for (int i = 1; i <= BROKERS; i++)
+            brokerRepository.addBroker(Broker.builder().brokerId(i).name("broker" + i).credit(Long.MAX_VALUE / 4).build());
+        for (int i = 1; i <= SHAREHOLDERS; i++) {
+            Shareholder shareholder = Shareholder.builder().shareholderId(i).name("shareholder" + i).build();
+            for (Security security : seeded)
+                shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+            shareholderRepository.addShareholder(shareholder);
+        }
+    }
+
+    void run(ConnectionFactory connectionFactory, MessageConverter converter, String requestQueue,
+             String responseQueue) throws JMSException, InterruptedException {
+        try (Connection connection = connectionFactory.createConnection()) {
+            Session receiving = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            receiving.createConsumer(receiving.createQueue(responseQueue)).setMessageListener(message -> {
+                try {
+                    onEvent(System.nanoTime(), converter.fromMessage(message));
+                } catch (JMSException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            connection.start();
+            Session sending = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = sending.createProducer(sending.createQueue(requestQueue));
+            producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+            send(sending, producer, converter);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (completions.get() < sentCount && System.nanoTime() < deadline)
+                Thread.sleep(10);
+        }
+    }
+
+    private void send(Session session, MessageProducer producer, MessageConverter converter) throws JMSException {
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        for (int seq = 1; seq < intended.length; seq++) {
+            long now = System.nanoTime();
+            long scheduled;
+            if (interval > 0) {
+                scheduled = start + (seq - 1) * interval;
+                if (scheduled > now)
+                    LockSupport.parkNanos(scheduled - now);
+            } else {
+                if (now >= end)
+                    break;
+                while (sentCount - completions.get() >= window)
+                    Thread.onSpinWait();
+                scheduled = System.nanoTime();
+            }
+            if (scheduled >= measureFrom && firstMeasured == Integer.MAX_VALUE)
+                firstMeasured = seq;
+            Request request = nextRequest(seq);
+            Message message = converter.toMessage(request, session);
+            intended[seq] = scheduled;
+            sent[seq] = System.nanoTime();
+            producer.send(message);
+            sentCount = seq;
+        }
+    }
+
+    private Request nextRequest(int seq) {
+        Kind kind = pickKind();
+        if ((kind == Kind.UPDATE || kind == Kind.DELETE) && liveOrders.isEmpty())
+            kind = Kind.NEW;
+        kinds[seq] = kind;
+        LocalDateTime now = LocalDateTime.now();
+        switch (kind) {
+            case UPDATE -> {
+                long[] order = liveOrders.get(random.nextInt(liveOrders.size()));
+                Side side = Side.values()[(int) order[2]];
+                return EnterOrderRq.createUpdateOrderRq(seq, isin((int) order[1]), order[0], now, side,
+                        quantity(), price(side), order[3], order[4], 0, 0, 0);
+            }
+            case DELETE -> {
+                int index = random.nextInt(liveOrders.size());
+                long[] order = liveOrders.get(index);
+                liveOrders.set(index, liveOrders.get(liveOrders.size() - 1));
+                liveOrders.remove(liveOrders.size() - 1);
+                return new DeleteOrderRq(seq, isin((int) order[1]), Side.values()[(int) order[2]], order[0]);
+            }
+            case TOGGLE -> {
+                int security = random.nextInt(securities);
+                states[security] = states[security] == MatchingState.CONTINUOUS ? MatchingState.AUCTION
+                        : MatchingState.CONTINUOUS;
+                ArrayDeque<Integer> pending = pendingToggles.get(isin(security));
+                synchronized (pending) {
+                    pending.add(seq);
+                }
+                return new ChangeMatchingStateRq(isin(security), states[security]);
+            }
+            default -> {
+                int security = random.nextInt(securities);
+                Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                long broker = 1 + random.nextInt(BROKERS);
+                long shareholder = 1 + random.nextInt(SHAREHOLDERS);
+                liveOrders.add(new long[]{seq, security, side.ordinal(), broker, shareholder});
+                return EnterOrderRq.createNewOrderRq(seq, isin(security), seq, now, side, quantity(), price(side),
+                        broker, shareholder, 0, 0, 0);
+            }
+        }
+    }
+
+    private Kind pickKind() {
+        int total = Arrays.stream(mix).sum();
+        int pick = random.nextInt(total);
+        for (Kind kind : Kind.values()) {
+            pick -= mix[kind.ordinal()];
+            if (pick < 0)
+                return kind;
+        }
+        return Kind.NEW;
+    }
+
+    private int quantity() {
+        return 10 * (1 + random.nextInt(10));
+    }
+
+    private int price(Side side) {
+        int offset = random.nextInt(22) - 2;
+        return side == Side.BUY ? MID_PRICE - offset : MID_PRICE + offset;
+    }
+
+    private void onEvent(long receivedAt, Object event) {
+        if (event instanceof OrderRejectedEvent rejectedEvent) {
+            rejected++;
+            complete((int) rejectedEvent.getRequestId(), receivedAt);
+        } else if (event instanceof OrderAcceptedEvent acceptedEvent)
+            complete((int) acceptedEvent.getRequestId(), receivedAt);
+        else if (event instanceof OrderExecutedEvent executedEvent)
+            complete((int) executedEvent.getRequestId(), receivedAt);
+        else if (event instanceof OrderUpdatedEvent updatedEvent)
+            complete((int) updatedEvent.getRequestId(), receivedAt);
+        else if (event instanceof OrderDeletedEvent deletedEvent)
+            complete((int) deletedEvent.getRequestId(), receivedAt);
+        else if (event instanceof SecurityStateChangedEvent stateChangedEvent) {
+            ArrayDeque<Integer> pending = pendingToggles.get(stateChangedEvent.getSecurityIsin());
+            Integer seq;
+            synchronized (pending) {
+                seq = pending.poll();
+            }
+            if (seq != null)
+                complete(seq, receivedAt);
+        }
+    }
+
+    private void complete(int seq, long receivedAt) {
+        if (seq <= 0 || seq >= completed.length || completed[seq])
+            return;
+        completed[seq] = true;
+        if (seq >= firstMeasured) {
+            corrected.get(kinds[seq]).recordValue(Math.min(receivedAt - intended[seq], HIGHEST_TRACKABLE_NANOS));
+            uncorrected.get(kinds[seq]).recordValue(Math.min(receivedAt - sent[seq], HIGHEST_TRACKABLE_NANOS));
+            lastCompletion = receivedAt;
+        }
+        completions.incrementAndGet();
+    }
+
+    void report(PrintStream out, Path histogramFile) throws IOException {
+        int measured = sentCount - Math.min(firstMeasured, sentCount + 1) + 1;
+        long measuredCompleted = corrected.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        double seconds = measuredCompleted == 0 ? 0
+                : (lastCompletion - intended[Math.min(firstMeasured, sentCount)]) / 1e9;
+        out.printf("TinyME end-to-end latency, %s, mix new/update/delete/toggle %s, %d securities%n",
+                rate > 0 ? "target " + rate + " rq/s" : "unthrottled, window " + window,
+                Arrays.toString(mix), securities);
+        out.printf("sent %d (measured %d after %d s warmup), completed %d, rejected %d, unanswered %d%n",
+                sentCount, measured, warmupSeconds, completions.get(), rejected, sentCount - completions.get());
+        out.printf("throughput %.0f rq/s over %.1f s%n", seconds > 0 ? measuredCompleted / seconds : 0, seconds);
+        out.printf("%-24s %9s %9s %9s %9s %9s %9s %9s%n", "latency (us)", "count", "p50", "p90", "p99",
+                "p99.9", "p99.99", "max");
+        Histogram allCorrected = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        Histogram allUncorrected = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        for (Kind kind : Kind.values()) {
+            allCorrected.add(corrected.get(kind));
+            allUncorrected.add(uncorrected.get(kind));
+            printRow(out, kind + " from schedule", corrected.get(kind));
+            printRow(out, kind + " from send", uncorrected.get(kind));
+        }
+        printRow(out, "ALL from schedule", allCorrected);
+        printRow(out, "ALL from send", allUncorrected);
+        Files.createDirectories(histogramFile.getParent());
+        try (PrintStream file = new PrintStream(Files.newOutputStream(histogramFile))) {
+            allCorrected.outputPercentileDistribution(file, 1000.0);
+        }
+        out.println("percentile distribution written to " + histogramFile);
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram) {
+        if (histogram.getTotalCount() == 0)
+            return;
+        out.printf("%-24s %9d", label, histogram.getTotalCount());
+        for (double percentile : PERCENTILES)
+            out.printf(" %9.1f", histogram.getValueAtPercentile(percentile) / 1000.0);
+        out.printf(" %9.1f%n", histogram.getMaxValue() / 1000.0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Set<String> harnessOptions = Set.of("rate", "warmup", "duration", "securities", "window", "mix", "maxRequests");
+        Map<String, String> options = new HashMap<>();
+        Map<String, String> springProperties = new LinkedHashMap<>();
+        springProperties.put("spring.profiles.active", "test");
+        springProperties.put("spring.artemis.mode", "embedded");
+        springProperties.put("spring.artemis.embedded.persistent", "false");
+        springProperties.put("spring.artemis.embedded.queues", "${requestQueue},${responseQueue}");
+        springProperties.put("spring.main.banner-mode", "off");
+        springProperties.put("logging.level.root", "WARN");
+        for (String arg : String.join(" ", args).trim().split("\\s+")) {
+            String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+            if (keyValue.length != 2)
+                continue;
+            if (harnessOptions.contains(keyValue[0]))
+                options.put(keyValue[0], keyValue[1]);
+            else
+                springProperties.put(keyValue[0], keyValue[1]);
+        }
+        LatencyHarness harness = new LatencyHarness(options);
+        String[] springArgs = springProperties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TinyMeApplication.class)
+                .run(springArgs)) {
+            harness.seed(context);
+            String requestQueue = context.getEnvironment().getRequiredProperty("requestQueue");
+            String responseQueue = context.getEnvironment().getRequiredProperty("responseQueue");
+            harness.run(context.getBean(ConnectionFactory.class), context.getBean(MessageConverter.class),
+                    requestQueue, responseQueue);
+            harness.report(System.out, Path.of("target", "latency-harness.hgrm"));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.RequestControl;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.LatencyMonitor;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class LatencyMonitorBenchmark {
+    private static final int LEVELS = 100;
+
+    @Param({"0", "1", "16", "128"})
+    int sampleEvery;
+
+    private OrderHandler orderHandler;
+    private final LocalDateTime entryTime = LocalDateTime.now();
+    private long nextId = 1_000_000;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LatencyMonitor latencyMonitor = new LatencyMonitor(sampleEvery > 0, sampleEvery, 0);
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        Security security = Security.builder().isin("ABC").lastTradePrice(15000).build();
+        Broker broker = Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 4).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+        securityRepository.addSecurity(security);
+        brokerRepository.addBroker(broker);
+        shareholderRepository.addShareholder(shareholder);
+        for (int level = 0; level < LEVELS; level++) {
+            security.getOrderBook().enqueue(new Order(level, security, Side.BUY, 100, 14999 - level, broker, shareholder));
+            security.getOrderBook().enqueue(new Order(LEVELS + level, security, Side.SELL, 100, 15001 + level, broker,
+                    shareholder));
+        }
+        EventPublisher eventPublisher = new EventPublisher(null, null, latencyMonitor) {
+            @Override
+            public void publish(Event event) {
+            }
+        };
+        orderHandler = new OrderHandler(securityRepository, brokerRepository, shareholderRepository, eventPublisher,
+                new ContinuousMatcher(latencyMonitor), new AuctionMatcher(latencyMonitor),
+                new RequestControl(securityRepository, brokerRepository, shareholderRepository), latencyMonitor);
+    }
+
+    @Benchmark
+    public void enterAndDelete() {
+        long id = ++nextId;
+        orderHandler.handleRequest(EnterOrderRq.createNewOrderRq(id, "ABC", id, entryTime, Side.BUY, 100, 14990,
+                1, 1, 0, 0, 0));
+        orderHandler.handleRequest(new DeleteOrderRq(id, "ABC", Side.BUY, id));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LatencyMonitorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
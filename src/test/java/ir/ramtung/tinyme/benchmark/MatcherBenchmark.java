@@ -0,0 +1,167 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatcherBenchmark {
+    private static final int TICK_SIZE = 10;
+    private static final int BASE_PRICE = 100_000;
+    private static final int QUANTITY = 100;
+
+    static abstract class Book {
+        Security security;
+        Broker broker;
+        Shareholder shareholder;
+        Random random;
+        long nextId;
+
+        void createSecurity(OrderBookMode mode) {
+            security = Security.builder().isin("ABC").tickSize(TICK_SIZE)
+                    .orderBook(new OrderBook(mode, TICK_SIZE)).lastTradePrice(BASE_PRICE).build();
+            broker = Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 4).build();
+            shareholder = Shareholder.builder().shareholderId(1).build();
+            shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+            random = new Random(11);
+            nextId = 0;
+        }
+
+        Order restingOrder(Side side, int price, int icebergPercent) {
+            long id = ++nextId;
+            if (random.nextInt(100) < icebergPercent)
+                return new IcebergOrder(id, security, side, QUANTITY * 4, price, broker, shareholder, QUANTITY);
+            return new Order(id, security, side, QUANTITY, price, broker, shareholder);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sweep extends Book {
+        @Param({"1", "10", "100"})
+        int sweepLevels;
+
+        @Param({"1", "10"})
+        int depth;
+
+        @Param({"0", "50"})
+        int icebergPercent;
+
+        @Param({"PRICE_TREE", "TICK_ARRAY"})
+        OrderBookMode mode;
+
+        final ContinuousMatcher matcher = new ContinuousMatcher();
+        Order incoming;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            createSecurity(mode);
+            int sweptQuantity = 0;
+            for (int level = 0; level < sweepLevels + 10; level++) {
+                for (int i = 0; i < depth; i++) {
+                    Order sell = restingOrder(Side.SELL, BASE_PRICE + level * TICK_SIZE, icebergPercent);
+                    security.getOrderBook().enqueue(sell);
+                    if (level < sweepLevels)
+                        sweptQuantity += sell.getTotalQuantity();
+                }
+            }
+            incoming = new Order(++nextId, security, Side.BUY, sweptQuantity,
+                    BASE_PRICE + (sweepLevels - 1) * TICK_SIZE, broker, shareholder);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Auction extends Book {
+        @Param({"10", "100"})
+        int crossedLevels;
+
+        @Param({"1", "10"})
+        int depth;
+
+        @Param({"0", "50"})
+        int icebergPercent;
+
+        final AuctionMatcher matcher = new AuctionMatcher();
+        int openingPrice;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            createSecurity(OrderBookMode.PRICE_TREE);
+            security.setMatchingState(MatchingState.AUCTION);
+            for (int level = 0; level < crossedLevels; level++) {
+                for (int i = 0; i < depth; i++) {
+                    security.getOrderBook().enqueue(restingOrder(Side.BUY,
+                            BASE_PRICE + level * TICK_SIZE, icebergPercent));
+                    security.getOrderBook().enqueue(restingOrder(Side.SELL,
+                            BASE_PRICE + (crossedLevels - 1 - level) * TICK_SIZE - TICK_SIZE / 2, icebergPercent));
+                }
+            }
+            openingPrice = security.findOpeningPrice().getFirst();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cascade extends Book {
+        @Param({"1", "10", "100"})
+        int cascadeLength;
+
+        final ContinuousMatcher matcher = new ContinuousMatcher();
+        final EventPublisher eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+            }
+        };
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            createSecurity(OrderBookMode.PRICE_TREE);
+            security.setLastTradePrice(BASE_PRICE - TICK_SIZE);
+            for (int step = 1; step <= cascadeLength; step++) {
+                int price = BASE_PRICE + step * TICK_SIZE;
+                security.getOrderBook().enqueue(restingOrder(Side.SELL, price, 0));
+                security.getStopOrderBook().enqueue(new StopLimitOrder(++nextId, security, Side.BUY, QUANTITY,
+                        price, broker, shareholder, price - TICK_SIZE, nextId));
+            }
+        }
+    }
+
+    @Benchmark
+    public MatchResult continuousSweep(Sweep sweep) {
+        return sweep.matcher.match(sweep.incoming);
+    }
+
+    @Benchmark
+    public MatchResult auctionOpen(Auction auction) {
+        Security security = auction.security;
+        return auction.matcher.match(security.findOpenOrders(auction.openingPrice, Side.BUY),
+                security.findOpenOrders(auction.openingPrice, Side.SELL), auction.openingPrice);
+    }
+
+    @Benchmark
+    public Security stopCascade(Cascade cascade) {
+        cascade.matcher.executeTriggeredStopLimitOrders(cascade.security, cascade.eventPublisher, BASE_PRICE);
+        return cascade.security;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MatcherBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + MatcherBenchmark.class.getSimpleName() + ".json")
+                .build()).run();
+    }
+}
@@ -0,0 +1,111 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+    private static final int TICK_SIZE = 10;
+    private static final int BEST_BUY = 100_000;
+
+    @Param({"10", "1000"})
+    int levels;
+
+    @Param({"1", "100"})
+    int depth;
+
+    @Param({"0", "50"})
+    int icebergPercent;
+
+    @Param({"PRICE_TREE", "TICK_ARRAY"})
+    OrderBookMode mode;
+
+    private OrderBook orderBook;
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private List<Order> resting;
+    private Random random;
+    private long nextId;
+    private int lastTradePrice;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        security = Security.builder().isin("ABC").tickSize(TICK_SIZE).build();
+        broker = Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 2).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        orderBook = new OrderBook(mode, TICK_SIZE);
+        resting = new ArrayList<>(2 * levels * depth);
+        random = new Random(7);
+        int overlap = levels / 2 * TICK_SIZE;
+        for (int level = 0; level < levels; level++) {
+            for (int i = 0; i < depth; i++) {
+                resting.add(newOrder(Side.BUY, BEST_BUY - level * TICK_SIZE));
+                resting.add(newOrder(Side.SELL, BEST_BUY - overlap + level * TICK_SIZE));
+            }
+        }
+        resting.forEach(orderBook::enqueue);
+        lastTradePrice = BEST_BUY;
+    }
+
+    private Order newOrder(Side side, int price) {
+        long id = ++nextId;
+        if (random.nextInt(100) < icebergPercent)
+            return new IcebergOrder(id, security, side, 1000, price, broker, shareholder, 100);
+        return new Order(id, security, side, 100, price, broker, shareholder);
+    }
+
+    private Order randomRestingOrder() {
+        return resting.get(random.nextInt(resting.size()));
+    }
+
+    @Benchmark
+    public Order findByOrderId() {
+        Order order = randomRestingOrder();
+        return orderBook.findByOrderId(order.getSide(), order.getOrderId());
+    }
+
+    @Benchmark
+    public boolean enqueueThenRemove() {
+        Order order = randomRestingOrder();
+        Order added = new Order(++nextId, security, order.getSide(), 100, order.getPrice(), broker, shareholder);
+        orderBook.enqueue(added);
+        return orderBook.removeByOrderId(added.getSide(), added.getOrderId());
+    }
+
+    @Benchmark
+    public boolean removeThenEnqueue() {
+        Order order = randomRestingOrder();
+        boolean removed = orderBook.removeByOrderId(order.getSide(), order.getOrderId());
+        orderBook.enqueue(order);
+        return removed;
+    }
+
+    @Benchmark
+    public CustomPair findOpeningPrice() {
+        lastTradePrice = lastTradePrice == BEST_BUY ? BEST_BUY - TICK_SIZE : BEST_BUY;
+        return orderBook.findOpeningPrice(lastTradePrice);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderBookBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + OrderBookBenchmark.class.getSimpleName() + ".json")
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.repository.CsvWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    @Param({"1000000"})
+    int orders;
+
+    private List<Order> book;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Security security = Security.builder().isin("IRO1ABCD0001").build();
+        Broker broker = Broker.builder().brokerId(17).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(4242).build();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        book = new ArrayList<>(orders);
+        for (int id = 0; id < orders; id++) {
+            Side side = id % 2 == 0 ? Side.BUY : Side.SELL;
+            LocalDateTime entryTime = start.plusNanos(id * 1_000L);
+            if (id % 10 == 0)
+                book.add(new IcebergOrder(id, security, side, 1000, 15000 + id % 500, broker, shareholder, entryTime,
+                        100, OrderStatus.QUEUED));
+            else
+                book.add(new Order(id, security, side, 100, 15000 + id % 500, broker, shareholder, entryTime,
+                        OrderStatus.QUEUED));
+        }
+        directory = Files.createTempDirectory("persistence-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("orderbook.csv"));
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void printWriter() throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(directory.resolve("orderbook.csv").toFile()))) {
+            writer.println("orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,peakSize,displayedQuantity");
+            for (Order order : book) {
+                StringJoiner joiner = new StringJoiner(",");
+                joiner.add(String.valueOf(order.getOrderId()))
+                        .add(order.getSecurity().getIsin())
+                        .add(order.getSide().toString())
+                        .add(String.valueOf(order.getQuantity()))
+                        .add(String.valueOf(order.getPrice()))
+                        .add(String.valueOf(order.getBroker().getBrokerId()))
+                        .add(String.valueOf(order.getShareholder().getShareholderId()))
+                        .add(order.getEntryTime().toString());
+                if (order instanceof IcebergOrder icebergOrder)
+                    joiner.add(String.valueOf(icebergOrder.getPeakSize()))
+                            .add(String.valueOf(icebergOrder.getDisplayedQuantity()));
+                else
+                    joiner.add("0").add("0");
+                writer.println(joiner);
+            }
+        }
+    }
+
+    @Benchmark
+    public void csvWriter() throws IOException {
+        try (CsvWriter writer = new CsvWriter(directory.resolve("orderbook.csv"),
+                "orderId,isin,side,quantity,price,brokerId,shareholderId,entryTime,peakSize,displayedQuantity")) {
+            for (Order order : book) {
+                writer.field(order.getOrderId())
+                        .field(order.getSecurity().getIsin())
+                        .field(order.getSide().toString())
+                        .field(order.getTotalQuantity())
+                        .field(order.getPrice())
+                        .field(order.getBroker().getBrokerId())
+                        .field(order.getShareholder().getShareholderId())
+                        .field(order.getEntryTime());
+                if (order instanceof IcebergOrder icebergOrder)
+                    writer.field(icebergOrder.getPeakSize()).field(icebergOrder.getDisplayedQuantity());
+                else
+                    writer.field(0).field(0);
+                writer.endRow();
+            }
+            writer.commit();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PersistenceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+package ir.ramtung.tinyme.benchmark;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import ir.ramtung.tinyme.repository.SnapshotStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+    private static final int SECURITIES = 20;
+    private static final int BROKERS = 50;
+    private static final int SHAREHOLDERS = 1000;
+
+    @Param({"1000000"})
+    int orders;
+
+    private Path directory;
+    private SnapshotStore snapshotStore;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        SecurityRepository securityRepository = new SecurityRepository();
+        for (int i = 0; i < BROKERS; i++)
+            brokerRepository.addBroker(Broker.builder().brokerId(i).name("B" + i).credit(1_000_000_000L).build());
+        for (int i = 0; i < SECURITIES; i++)
+            securityRepository.addSecurity(Security.builder().isin("SEC" + i).build());
+        for (int i = 0; i < SHAREHOLDERS; i++) {
+            Shareholder shareholder = Shareholder.builder().shareholderId(i).name("S" + i).build();
+            for (int j = 0; j < SECURITIES; j++)
+                shareholder.incPosition(securityRepository.findSecurityByIsin("SEC" + j), 1_000_000);
+            shareholderRepository.addShareholder(shareholder);
+        }
+        LocalDateTime entryTime = LocalDateTime.of(2024, 3, 1, 9, 0);
+        for (int id = 0; id < orders; id++) {
+            Security security = securityRepository.findSecurityByIsin("SEC" + id % SECURITIES);
+            Side side = id % 2 == 0 ? Side.BUY : Side.SELL;
+            int price = side == Side.BUY ? 10000 - id % 500 : 10010 + id % 500;
+            Broker broker = brokerRepository.findBrokerById(id % BROKERS);
+            Shareholder shareholder = shareholderRepository.findShareholderById(id % SHAREHOLDERS);
+            if (id % 10 == 0)
+                security.getStopOrderBook().restore(new StopLimitOrder(id, security, side, 100, price, broker,
+                        shareholder, entryTime.plusNanos(id), price, OrderStatus.NEW, id));
+            else if (id % 10 == 1)
+                security.getOrderBook().restore(new IcebergOrder(id, security, side, 500, price, broker,
+                        shareholder, entryTime.plusNanos(id), 100, OrderStatus.QUEUED));
+            else
+                security.getOrderBook().restore(new Order(id, security, side, 100, price, broker, shareholder,
+                        entryTime.plusNanos(id), OrderStatus.QUEUED, 0, true));
+        }
+        directory = Files.createTempDirectory("recovery-benchmark");
+        snapshotStore = new SnapshotStore(brokerRepository, shareholderRepository, securityRepository,
+                directory.toString(), 0);
+        snapshotStore.write(orders);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void awaitCheckpoint() throws InterruptedException {
+        while (snapshotStore.isCheckpointing())
+            Thread.sleep(1);
+    }
+
+    @Benchmark
+    public boolean checkpointPause() {
+        return snapshotStore.checkpoint(orders, () -> {});
+    }
+
+    @Benchmark
+    public void writeSnapshot() throws IOException {
+        snapshotStore.write(orders);
+    }
+
+    @Benchmark
+    public long loadSnapshot() throws IOException {
+        return snapshotStore.load();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecoveryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
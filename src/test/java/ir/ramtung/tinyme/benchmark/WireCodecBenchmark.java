@@ -0,0 +1,74 @@
+package ir.ramtung.tinyme.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.BinaryCodec;
+import ir.ramtung.tinyme.messaging.TradeDTO;
+import ir.ramtung.tinyme.messaging.event.OrderExecutedEvent;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WireCodecBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final BinaryCodec codec = new BinaryCodec();
+    private final ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private EnterOrderRq enterOrderRq;
+    private OrderExecutedEvent orderExecutedEvent;
+
+    @Setup
+    public void setup() {
+        enterOrderRq = EnterOrderRq.createNewOrderRq(1, "IRO1ABCD0001", 200, LocalDateTime.now(), Side.BUY, 300,
+                15450, 2, 3, 0, 0, 0);
+        List<TradeDTO> trades = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            trades.add(new TradeDTO("IRO1ABCD0001", 15450 + i * 10, 60, 200, 100 + i));
+        orderExecutedEvent = new OrderExecutedEvent(1, 200, trades);
+    }
+
+    private Object binaryRoundTrip(Object message) {
+        buffer.clear();
+        codec.encode(message, buffer);
+        buffer.flip();
+        return codec.decode(buffer);
+    }
+
+    @Benchmark
+    public Object jsonEnterOrderRq() throws IOException {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(enterOrderRq), EnterOrderRq.class);
+    }
+
+    @Benchmark
+    public Object binaryEnterOrderRq() {
+        return binaryRoundTrip(enterOrderRq);
+    }
+
+    @Benchmark
+    public Object jsonOrderExecutedEvent() throws IOException {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(orderExecutedEvent), OrderExecutedEvent.class);
+    }
+
+    @Benchmark
+    public Object binaryOrderExecutedEvent() {
+        return binaryRoundTrip(orderExecutedEvent);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WireCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,170 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.config.MockedJMSTestConfig;
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.BatchLegResult;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.TradeDTO;
+import ir.ramtung.tinyme.messaging.event.BatchOrderResultEvent;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.request.BatchEnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@Import(MockedJMSTestConfig.class)
+@DirtiesContext
+public class BatchOrderHandlerTest {
+    @Autowired
+    OrderHandler orderHandler;
+    @Autowired
+    EventPublisher eventPublisher;
+    @Autowired
+    SecurityRepository securityRepository;
+    @Autowired
+    BrokerRepository brokerRepository;
+    @Autowired
+    ShareholderRepository shareholderRepository;
+    private Security security;
+    private Shareholder shareholder;
+    private Broker broker;
+    private Broker otherBroker;
+
+    @BeforeEach
+    void setup() {
+        securityRepository.clear();
+        brokerRepository.clear();
+        shareholderRepository.clear();
+        reset(eventPublisher);
+
+        security = Security.builder().isin("ABC").build();
+        securityRepository.addSecurity(security);
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        shareholderRepository.addShareholder(shareholder);
+        broker = Broker.builder().brokerId(1).credit(10_000_000L).build();
+        otherBroker = Broker.builder().brokerId(2).credit(10_000_000L).build();
+        brokerRepository.addBroker(broker);
+        brokerRepository.addBroker(otherBroker);
+    }
+
+    private EnterOrderRq newLeg(long requestId, long orderId, Side side, int quantity, int price) {
+        return EnterOrderRq.createNewOrderRq(requestId, "ABC", orderId, LocalDateTime.now(), side, quantity, price,
+                broker.getBrokerId(), shareholder.getShareholderId(), 0, 0, 0);
+    }
+
+    private List<Event> publishedEvents() {
+        ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(eventPublisher, atLeast(0)).publish(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void batch_is_answered_with_a_single_aggregated_event() {
+        Order oldQuote = new Order(10, security, Side.BUY, 100, 15000, broker, shareholder);
+        security.getOrderBook().enqueue(oldQuote);
+        broker.decreaseCreditBy(oldQuote.getValue());
+        Order resting = new Order(20, security, Side.SELL, 50, 15100, otherBroker, shareholder);
+        security.getOrderBook().enqueue(resting);
+
+        BatchEnterOrderRq batchRq = new BatchEnterOrderRq(1, "ABC", broker.getBrokerId(),
+                List.of(new DeleteOrderRq(2, "ABC", Side.BUY, 10)),
+                List.of(newLeg(3, 11, Side.BUY, 100, 15100), newLeg(4, 12, Side.SELL, 100, 15300)));
+        orderHandler.handleRequest(batchRq);
+
+        assertThat(publishedEvents()).containsExactly(new BatchOrderResultEvent(1, List.of(
+                new BatchLegResult(2, 10, BatchLegResult.Outcome.DELETED, false, List.of(), List.of()),
+                new BatchLegResult(3, 11, BatchLegResult.Outcome.ACCEPTED, false, List.of(),
+                        List.of(new TradeDTO("ABC", 15100, 50, 11, 20))),
+                new BatchLegResult(4, 12, BatchLegResult.Outcome.ACCEPTED, false, List.of(), List.of()))));
+        assertThat(security.getOrderBook().findByOrderId(Side.BUY, 10)).isNull();
+        assertThat(security.getOrderBook().findByOrderId(Side.BUY, 11).getQuantity()).isEqualTo(50);
+        assertThat(security.getOrderBook().findByOrderId(Side.SELL, 12)).isNotNull();
+        assertThat(broker.getCredit()).isEqualTo(10_000_000L - 100 * 15100);
+    }
+
+    @Test
+    void failing_legs_are_rejected_without_affecting_the_others() {
+        broker.decreaseCreditBy(10_000_000L - 1_500_000L);
+
+        BatchEnterOrderRq batchRq = new BatchEnterOrderRq(1, "ABC", broker.getBrokerId(),
+                List.of(new DeleteOrderRq(2, "ABC", Side.BUY, 99)),
+                List.of(newLeg(3, 11, Side.BUY, 100, 15000), newLeg(4, 12, Side.BUY, 100, 15000),
+                        newLeg(5, 13, Side.SELL, 0, 15300)));
+        orderHandler.handleRequest(batchRq);
+
+        assertThat(publishedEvents()).containsExactly(new BatchOrderResultEvent(1, List.of(
+                BatchLegResult.rejected(2, 99, List.of(Message.ORDER_ID_NOT_FOUND)),
+                new BatchLegResult(3, 11, BatchLegResult.Outcome.ACCEPTED, false, List.of(), List.of()),
+                BatchLegResult.rejected(4, 12, List.of(Message.BUYER_HAS_NOT_ENOUGH_CREDIT)),
+                BatchLegResult.rejected(5, 13, List.of(Message.ORDER_QUANTITY_NOT_POSITIVE,
+                        Message.INVALID_PEAK_SIZE)))));
+        assertThat(broker.getCredit()).isZero();
+    }
+
+    @Test
+    void batch_with_legs_of_another_broker_is_rejected_as_a_whole() {
+        EnterOrderRq foreignLeg = EnterOrderRq.createNewOrderRq(3, "ABC", 11, LocalDateTime.now(), Side.BUY, 100,
+                15000, otherBroker.getBrokerId(), shareholder.getShareholderId(), 0, 0, 0);
+        BatchEnterOrderRq batchRq = new BatchEnterOrderRq(1, "ABC", broker.getBrokerId(), List.of(),
+                List.of(newLeg(2, 10, Side.BUY, 100, 15000), foreignLeg));
+        orderHandler.handleRequest(batchRq);
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 0, List.of(Message.BATCH_LEG_BROKER_MISMATCH)));
+        assertThat(security.getOrderBook().findByOrderId(Side.BUY, 10)).isNull();
+    }
+
+    @Test
+    void legs_touching_orders_of_another_broker_are_rejected() {
+        Order foreignBuy = new Order(10, security, Side.BUY, 100, 15000, otherBroker, shareholder);
+        Order foreignSell = new Order(20, security, Side.SELL, 100, 15500, otherBroker, shareholder);
+        security.getOrderBook().enqueue(foreignBuy);
+        security.getOrderBook().enqueue(foreignSell);
+        EnterOrderRq updateLeg = EnterOrderRq.createUpdateOrderRq(3, "ABC", 20, LocalDateTime.now(), Side.SELL, 50,
+                15400, broker.getBrokerId(), shareholder.getShareholderId(), 0, 0, 0);
+
+        BatchEnterOrderRq batchRq = new BatchEnterOrderRq(1, "ABC", broker.getBrokerId(),
+                List.of(new DeleteOrderRq(2, "ABC", Side.BUY, 10)), List.of(updateLeg));
+        orderHandler.handleRequest(batchRq);
+
+        assertThat(publishedEvents()).containsExactly(new BatchOrderResultEvent(1, List.of(
+                BatchLegResult.rejected(2, 10, List.of(Message.BATCH_LEG_BROKER_MISMATCH)),
+                BatchLegResult.rejected(3, 20, List.of(Message.BATCH_LEG_BROKER_MISMATCH)))));
+        assertThat(security.getOrderBook().findByOrderId(Side.BUY, 10)).isSameAs(foreignBuy);
+        assertThat(security.getOrderBook().findByOrderId(Side.SELL, 20).getQuantity()).isEqualTo(100);
+        assertThat(security.getOrderBook().findByOrderId(Side.SELL, 20).getPrice()).isEqualTo(15500);
+    }
+
+    @Test
+    void batch_with_missing_leg_lists_is_rejected_as_empty() {
+        orderHandler.handleRequest(new BatchEnterOrderRq(1, "ABC", broker.getBrokerId(), null, null));
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 0, List.of(Message.EMPTY_BATCH)));
+    }
+
+    @Test
+    void empty_batch_is_rejected() {
+        orderHandler.handleRequest(new BatchEnterOrderRq(1, "ABC", broker.getBrokerId(), List.of(), List.of()));
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 0, List.of(Message.EMPTY_BATCH)));
+    }
+}
@@ -80,10 +80,18 @@ public class BrokerCreditTest {
     void increase_seller_credit_after_matched() {
         long creditBeforeSelling = broker2.getCredit();
         Order new_order = new Order(11, security, Side.SELL, 5, 15700, broker2, shareholder);
-        continuousMatcher.match(new_order);
+        continuousMatcher.execute(new_order);
         assertThat(broker2.getCredit()).isEqualTo(creditBeforeSelling + 5 * 15700);
     }
 
+    @Test
+    void seller_is_not_credited_until_the_match_commits() {
+        long creditBeforeSelling = broker2.getCredit();
+        Order new_order = new Order(11, security, Side.SELL, 5, 15700, broker2, shareholder);
+        continuousMatcher.match(new_order);
+        assertThat(broker2.getCredit()).isEqualTo(creditBeforeSelling);
+    }
+
     @Test
     void decrease_buyer_credit_after_completely_matched() {
         long creditBeforeBuying = broker1.getCredit();
@@ -257,6 +265,47 @@ public class BrokerCreditTest {
         }
     }
 
+    @Test
+    void held_credit_is_drawn_and_refunded_without_touching_the_broker() {
+        Broker broker = Broker.builder().credit(0).brokerId(3).build();
+        Order order = new Order(11, security, Side.BUY, 10, 15000, broker, shareholder);
+        order.holdCredit(150_000);
+        assertThat(order.tryReserveCredit(100_000)).isTrue();
+        assertThat(order.tryReserveCredit(60_000)).isFalse();
+        order.refundCredit(100_000);
+        assertThat(broker.getCredit()).isZero();
+        assertThat(order.releaseHeldCredit()).isEqualTo(150_000);
+    }
+
+    @Test
+    void updated_order_rematches_against_its_own_reservation_and_returns_the_rest() throws Exception {
+        Broker broker = Broker.builder().credit(0).brokerId(3).build();
+        security.getOrderBook().enqueue(new Order(12, security, Side.BUY, 10, 15000, broker, shareholder));
+        EnterOrderRq updateReq = EnterOrderRq.createUpdateOrderRq(1, "ABC", 12, LocalDateTime.now(), Side.BUY, 9,
+                15800, 3, 1, 0, 0, 0);
+        MatchResult result = security.updateOrder(updateReq, continuousMatcher);
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.EXECUTED);
+        assertThat(broker.getCredit()).isEqualTo(10 * 15000 - 9 * 15800);
+    }
+
+    @Test
+    void stop_limit_buy_updated_to_a_lower_price_returns_the_difference() throws Exception {
+        Broker broker = Broker.builder().credit(1_000_000).brokerId(3).build();
+        EnterOrderRq newReq = EnterOrderRq.createNewOrderRq(1, "ABC", 12, LocalDateTime.now(), Side.BUY, 100,
+                200, 3, 1, 0, 0, 20000);
+        security.newOrder(newReq, broker, shareholder, continuousMatcher);
+        assertThat(broker.getCredit()).isEqualTo(1_000_000 - 100 * 200);
+
+        EnterOrderRq updateReq = EnterOrderRq.createUpdateOrderRq(2, "ABC", 12, LocalDateTime.now(), Side.BUY, 100,
+                150, 3, 1, 0, 0, 20000);
+        MatchResult result = security.updateOrder(updateReq, continuousMatcher);
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.NOT_ACTIVATED);
+        assertThat(broker.getCredit()).isEqualTo(1_000_000 - 100 * 150);
+
+        security.deleteOrder(new DeleteOrderRq(3, "ABC", Side.BUY, 12));
+        assertThat(broker.getCredit()).isEqualTo(1_000_000);
+    }
+
     @Test
     void broker_credit_in_auction_matcher_excute_only() {
         security.setMatchingState(MatchingState.AUCTION);
@@ -252,4 +252,38 @@ public class ContinuousMatcherTest {
         assertThat(result.outcome()).isEqualTo(MatchingOutcome.EXECUTED);
         assertThat(security.getOrderBook().findByOrderId(Side.BUY, 15)).isEqualTo(null);
     }
+
+    @Test
+    void rollback_on_insufficient_credit_restores_matched_sell_orders() {
+        Broker buyer = Broker.builder().credit(10_100_000L).brokerId(2).build();
+        Order order = new Order(11, security, Side.BUY, 1000, 15810, buyer, shareholder);
+
+        MatchResult result = continuousMatcher.match(order);
+
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.NOT_ENOUGH_CREDIT);
+        assertThat(orderBook.getSellQueue()).extracting(Order::getOrderId).containsExactly(6L, 7L, 8L, 9L, 10L);
+        assertThat(orderBook.getSellQueue()).extracting(Order::getQuantity).containsExactly(350, 285, 800, 340, 65);
+        assertThat(buyer.getCredit()).isEqualTo(10_100_000L);
+        assertThat(broker.getCredit()).isEqualTo(100_000_000L);
+    }
+
+    @Test
+    void rollback_restores_iceberg_matched_more_than_once_to_the_front_of_the_queue() {
+        Security other = Security.builder().isin("XYZ").lastTradePrice(100).build();
+        IcebergOrder iceberg = new IcebergOrder(1, other, Side.SELL, 30, 100, broker, shareholder, 10);
+        Order plain = new Order(2, other, Side.SELL, 10, 100, broker, shareholder);
+        Order higher = new Order(3, other, Side.SELL, 50, 110, broker, shareholder);
+        List.of(iceberg, plain, higher).forEach(other.getOrderBook()::enqueue);
+        Order order = new Order(4, other, Side.BUY, 100, 110, broker, shareholder, 100, false);
+
+        MatchResult result = continuousMatcher.execute(order);
+
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.MINIMUM_NOT_MATCHED);
+        List<Order> sells = other.getOrderBook().getSellQueue();
+        assertThat(sells).extracting(Order::getOrderId).containsExactly(1L, 2L, 3L);
+        assertThat(sells).extracting(Order::getTotalQuantity).containsExactly(30, 10, 50);
+        assertThat(sells.get(0).getQuantity()).isEqualTo(10);
+        assertThat(other.getOrderBook().totalSellQuantityByShareholder(shareholder)).isEqualTo(90);
+        assertThat(broker.getCredit()).isEqualTo(100_000_000L);
+    }
 }
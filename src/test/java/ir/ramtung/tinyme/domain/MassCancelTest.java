@@ -0,0 +1,139 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.config.MockedJMSTestConfig;
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.OrdersCancelledEvent;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@Import(MockedJMSTestConfig.class)
+@DirtiesContext
+public class MassCancelTest {
+    @Autowired
+    OrderHandler orderHandler;
+    @Autowired
+    EventPublisher eventPublisher;
+    @Autowired
+    SecurityRepository securityRepository;
+    @Autowired
+    BrokerRepository brokerRepository;
+    @Autowired
+    ShareholderRepository shareholderRepository;
+    private Security security;
+    private Broker broker1;
+    private Broker broker2;
+    private Shareholder shareholder1;
+    private Shareholder shareholder2;
+
+    @BeforeEach
+    void setup() {
+        securityRepository.clear();
+        brokerRepository.clear();
+        shareholderRepository.clear();
+        reset(eventPublisher);
+
+        security = Security.builder().isin("ABC").build();
+        securityRepository.addSecurity(security);
+        broker1 = Broker.builder().brokerId(1).build();
+        broker2 = Broker.builder().brokerId(2).build();
+        brokerRepository.addBroker(broker1);
+        brokerRepository.addBroker(broker2);
+        shareholder1 = Shareholder.builder().shareholderId(1).build();
+        shareholder2 = Shareholder.builder().shareholderId(2).build();
+        shareholderRepository.addShareholder(shareholder1);
+        shareholderRepository.addShareholder(shareholder2);
+
+        List<Order> orders = List.of(
+                new Order(1, security, Side.BUY, 100, 15000, broker1, shareholder1),
+                new Order(2, security, Side.BUY, 200, 15100, broker1, shareholder2),
+                new Order(3, security, Side.BUY, 300, 15000, broker2, shareholder1),
+                new Order(4, security, Side.SELL, 400, 15500, broker1, shareholder1),
+                new Order(5, security, Side.SELL, 500, 15600, broker2, shareholder2),
+                new IcebergOrder(6, security, Side.SELL, 600, 15500, broker1, shareholder2, 100)
+        );
+        orders.forEach(order -> security.getOrderBook().enqueue(order));
+        security.getStopOrderBook().enqueue(new StopLimitOrder(7, security, Side.BUY, 50, 16000, broker1,
+                shareholder1, 15800, 7));
+    }
+
+    private List<Long> remainingOrderIds() {
+        return Stream.of(security.getOrderBook().getBuyQueue(), security.getOrderBook().getSellQueue(),
+                        security.getStopOrderBook().getBuyQueue(), security.getStopOrderBook().getSellQueue())
+                .flatMap(List::stream).map(Order::getOrderId).sorted().toList();
+    }
+
+    @Test
+    void cancelling_by_broker_removes_its_orders_on_both_books_and_refunds_credit_once() {
+        orderHandler.handleRequest(new MassCancelRq(1, "ABC", 1L, null, null));
+
+        long refund = 100 * 15000 + 200 * 15100 + 50 * 16000;
+        verify(eventPublisher).publish(new OrdersCancelledEvent(1, "ABC", 5, 100 + 200 + 400 + 600 + 50, refund));
+        assertThat(remainingOrderIds()).containsExactly(3L, 5L);
+        assertThat(broker1.getCredit()).isEqualTo(refund);
+        assertThat(broker2.getCredit()).isZero();
+        assertThat(security.getOrderBook().totalSellQuantityByShareholder(shareholder2)).isEqualTo(500);
+    }
+
+    @Test
+    void cancelling_by_broker_and_shareholder_and_side_removes_only_their_intersection() {
+        orderHandler.handleRequest(new MassCancelRq(1, "ABC", 1L, 2L, Side.SELL));
+
+        verify(eventPublisher).publish(new OrdersCancelledEvent(1, "ABC", 1, 600, 0));
+        assertThat(remainingOrderIds()).containsExactly(1L, 2L, 3L, 4L, 5L, 7L);
+    }
+
+    @Test
+    void cancelling_by_security_removes_all_orders() {
+        orderHandler.handleRequest(new MassCancelRq(1, "ABC", null, null, null));
+
+        assertThat(remainingOrderIds()).isEmpty();
+        assertThat(security.getOrderBook().hasOrderOfType(Side.BUY)).isFalse();
+        assertThat(security.getOrderBook().hasOrderOfType(Side.SELL)).isFalse();
+        assertThat(broker2.getCredit()).isEqualTo(300 * 15000);
+    }
+
+    @Test
+    void stop_orders_are_kept_in_auction_state() {
+        security.setMatchingState(MatchingState.AUCTION);
+
+        orderHandler.handleRequest(new MassCancelRq(1, "ABC", 1L, null, Side.BUY));
+
+        assertThat(remainingOrderIds()).containsExactly(3L, 4L, 5L, 6L, 7L);
+    }
+
+    @Test
+    void cancelled_orders_are_no_longer_found_by_owner() {
+        security.cancelOrders(null, broker1, null);
+        security.getOrderBook().enqueue(new Order(8, security, Side.BUY, 10, 15000, broker1, shareholder1));
+
+        assertThat(security.cancelOrders(null, broker1, null)).extracting(Order::getOrderId).containsExactly(8L);
+    }
+
+    @Test
+    void mass_cancel_for_unknown_owner_is_rejected() {
+        orderHandler.handleRequest(new MassCancelRq(1, "ABC", 9L, null, null));
+
+        verify(eventPublisher).publish(new OrderRejectedEvent(1, 0, List.of(Message.UNKNOWN_BROKER_ID)));
+        assertThat(remainingOrderIds()).hasSize(7);
+    }
+}
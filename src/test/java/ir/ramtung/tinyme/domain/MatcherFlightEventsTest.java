@@ -0,0 +1,160 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MatcherFlightEventsTest {
+    private static final List<String> EVENT_NAMES = List.of("ir.ramtung.tinyme.ContinuousMatch",
+            "ir.ramtung.tinyme.TradeRollback", "ir.ramtung.tinyme.AuctionMatch",
+            "ir.ramtung.tinyme.StopOrderActivation");
+
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private Recording recording;
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setup() {
+        security = Security.builder().isin("ABC").lastTradePrice(100).build();
+        broker = Broker.builder().brokerId(1).credit(100_000).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        recording = new Recording();
+        for (String name : EVENT_NAMES)
+            recording.enable(name).withThreshold(Duration.ZERO);
+        recording.start();
+    }
+
+    @AfterEach
+    void closeRecording() {
+        recording.close();
+    }
+
+    private List<RecordedEvent> recorded(String name) throws IOException {
+        recording.stop();
+        Path file = tempDir.resolve("matcher.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("ir.ramtung.tinyme." + name))
+                .toList();
+    }
+
+    @Test
+    void continuous_match_records_trades_and_levels_swept() throws IOException {
+        security.getOrderBook().enqueue(new Order(1, security, Side.SELL, 10, 100, broker, shareholder));
+        security.getOrderBook().enqueue(new Order(2, security, Side.SELL, 10, 100, broker, shareholder));
+        security.getOrderBook().enqueue(new Order(3, security, Side.SELL, 10, 110, broker, shareholder));
+        security.getOrderBook().enqueue(new Order(4, security, Side.SELL, 10, 120, broker, shareholder));
+
+        new ContinuousMatcher().match(new Order(5, security, Side.BUY, 35, 120, broker, shareholder));
+
+        List<RecordedEvent> events = recorded("ContinuousMatch");
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("isin")).isEqualTo("ABC");
+        assertThat(event.getLong("orderId")).isEqualTo(5);
+        assertThat(event.getString("side")).isEqualTo("BUY");
+        assertThat(event.getInt("requestedQuantity")).isEqualTo(35);
+        assertThat(event.getInt("trades")).isEqualTo(4);
+        assertThat(event.getInt("levelsSwept")).isEqualTo(3);
+        assertThat(event.getString("outcome")).isEqualTo("EXECUTED");
+    }
+
+    @Test
+    void rollback_on_insufficient_credit_is_recorded() throws IOException {
+        Broker poorBroker = Broker.builder().brokerId(2).credit(1500).build();
+        security.getOrderBook().enqueue(new Order(1, security, Side.SELL, 10, 100, broker, shareholder));
+        security.getOrderBook().enqueue(new Order(2, security, Side.SELL, 10, 110, broker, shareholder));
+
+        new ContinuousMatcher().match(new Order(3, security, Side.BUY, 20, 110, poorBroker, shareholder));
+
+        List<RecordedEvent> events = recorded("TradeRollback");
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("isin")).isEqualTo("ABC");
+        assertThat(event.getLong("orderId")).isEqualTo(3);
+        assertThat(event.getString("side")).isEqualTo("BUY");
+        assertThat(event.getInt("trades")).isEqualTo(1);
+        assertThat(event.getLong("value")).isEqualTo(1000);
+        assertThat(event.getString("reason")).isEqualTo("NOT_ENOUGH_CREDIT");
+    }
+
+    @Test
+    void auction_match_records_opening_price_and_volume() throws IOException {
+        Order buy = new Order(1, security, Side.BUY, 30, 110, broker, shareholder);
+        Order sell = new Order(2, security, Side.SELL, 20, 100, broker, shareholder);
+        security.getOrderBook().enqueue(buy);
+        security.getOrderBook().enqueue(sell);
+
+        new AuctionMatcher().match(new LinkedList<>(List.of(buy)), new LinkedList<>(List.of(sell)), 105);
+
+        List<RecordedEvent> events = recorded("AuctionMatch");
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("isin")).isEqualTo("ABC");
+        assertThat(event.getInt("openingPrice")).isEqualTo(105);
+        assertThat(event.getInt("buyOrders")).isEqualTo(1);
+        assertThat(event.getInt("sellOrders")).isEqualTo(1);
+        assertThat(event.getInt("trades")).isEqualTo(1);
+        assertThat(event.getLong("tradedQuantity")).isEqualTo(20);
+    }
+
+    @Test
+    void each_activated_stop_order_is_recorded_with_its_cascade_position() throws IOException {
+        security.getOrderBook().enqueue(new Order(1, security, Side.SELL, 10, 110, broker, shareholder));
+        security.getOrderBook().enqueue(new Order(2, security, Side.SELL, 10, 120, broker, shareholder));
+        security.getStopOrderBook().enqueue(new StopLimitOrder(3, security, Side.BUY, 10, 110, broker, shareholder,
+                105, 33));
+        security.getStopOrderBook().enqueue(new StopLimitOrder(4, security, Side.BUY, 10, 120, broker, shareholder,
+                110, 44));
+        EventPublisher eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+            }
+        };
+
+        new ContinuousMatcher().executeTriggeredStopLimitOrders(security, eventPublisher, 105);
+
+        List<RecordedEvent> events = recorded("StopOrderActivation");
+        assertThat(events).extracting(event -> event.getLong("orderId")).containsExactly(3L, 4L);
+        assertThat(events).extracting(event -> event.getLong("requestId")).containsExactly(33L, 44L);
+        assertThat(events).extracting(event -> event.getInt("lastTradePrice")).containsExactly(105, 110);
+        assertThat(events).extracting(event -> event.getInt("cascadePosition")).containsExactly(1, 2);
+        assertThat(events).extracting(event -> event.getInt("trades")).containsExactly(1, 1);
+        assertThat(events).allSatisfy(event -> assertThat(event.getString("isin")).isEqualTo("ABC"));
+    }
+
+    @Test
+    void stop_order_triggered_on_entry_is_recorded_at_position_zero() throws IOException {
+        security.getOrderBook().enqueue(new Order(1, security, Side.SELL, 10, 110, broker, shareholder));
+
+        new ContinuousMatcher().match(new StopLimitOrder(2, security, Side.BUY, 10, 110, broker, shareholder,
+                90, 22));
+
+        List<RecordedEvent> events = recorded("StopOrderActivation");
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getLong("orderId")).isEqualTo(2);
+        assertThat(events.get(0).getLong("requestId")).isEqualTo(22);
+        assertThat(events.get(0).getInt("cascadePosition")).isZero();
+    }
+}
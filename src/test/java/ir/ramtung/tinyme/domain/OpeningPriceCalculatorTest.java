@@ -0,0 +1,174 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpeningPriceCalculatorTest {
+    private Broker broker;
+    private Shareholder shareholder;
+
+    @BeforeEach
+    void setup() {
+        broker = Broker.builder().brokerId(1).credit(100_000_000L).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+    }
+
+    private Security randomBook(Random random, OrderBookMode mode) {
+        int basePrice = 1000;
+        int priceLevels = 1 + random.nextInt(12);
+        Security security = Security.builder().isin("ABC").orderBook(new OrderBook(mode, 1))
+                .lastTradePrice(random.nextInt(4) == 0 ? 0 : basePrice + random.nextInt(priceLevels * 2) - priceLevels / 2)
+                .build();
+        int orderCount = random.nextInt(30);
+        for (int orderId = 1; orderId <= orderCount; orderId++) {
+            Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+            int price = basePrice + random.nextInt(priceLevels) - priceLevels / 2;
+            int quantity = 1 + random.nextInt(random.nextBoolean() ? 10 : 300);
+            Order order;
+            if (random.nextInt(4) == 0)
+                order = new IcebergOrder(orderId, security, side, quantity, price, broker, shareholder,
+                        1 + random.nextInt(quantity));
+            else
+                order = new Order(orderId, security, side, quantity, price, broker, shareholder);
+            security.getOrderBook().enqueue(order);
+        }
+        return security;
+    }
+
+    @Test
+    void matches_order_by_order_algorithm_on_random_books() {
+        Random random = new Random(1403);
+        for (int i = 0; i < 20_000; i++) {
+            Security security = randomBook(random, i % 2 == 0 ? OrderBookMode.PRICE_TREE : OrderBookMode.TICK_ARRAY);
+            CustomPair expected = ReferenceOpeningPrice.find(security.getOrderBook().getBuyQueue(),
+                    security.getOrderBook().getSellQueue(), security.getLastTradePrice());
+            CustomPair actual = security.findOpeningPrice();
+            assertThat(actual.getFirst()).as("opening price of book %d", i).isEqualTo(expected.getFirst());
+            assertThat(actual.getSecond()).as("tradable quantity of book %d", i).isEqualTo(expected.getSecond());
+        }
+    }
+
+    @Test
+    void matches_order_by_order_algorithm_after_partial_fills_and_removals() {
+        Random random = new Random(97);
+        for (int i = 0; i < 5_000; i++) {
+            Security security = randomBook(random, OrderBookMode.PRICE_TREE);
+            OrderBook orderBook = security.getOrderBook();
+            for (Order order : orderBook.getSellQueue()) {
+                if (random.nextInt(3) == 0)
+                    orderBook.removeByOrderId(Side.SELL, order.getOrderId());
+                else if (order.getQuantity() > 1 && random.nextBoolean())
+                    orderBook.decreaseQuantity(order, 1 + random.nextInt(order.getQuantity() - 1));
+            }
+            CustomPair expected = ReferenceOpeningPrice.find(orderBook.getBuyQueue(), orderBook.getSellQueue(),
+                    security.getLastTradePrice());
+            CustomPair actual = security.findOpeningPrice();
+            assertThat(actual.getFirst()).isEqualTo(expected.getFirst());
+            assertThat(actual.getSecond()).isEqualTo(expected.getSecond());
+        }
+    }
+
+    @Test
+    void cached_indicative_price_follows_incremental_changes() {
+        Random random = new Random(11);
+        Security security = Security.builder().isin("ABC").lastTradePrice(1000).build();
+        OrderBook orderBook = security.getOrderBook();
+        for (int orderId = 1; orderId <= 3_000; orderId++) {
+            int operation = random.nextInt(4);
+            if (operation == 0 && orderBook.hasOrderOfType(Side.SELL)) {
+                List<Order> sellQueue = orderBook.getSellQueue();
+                Order order = sellQueue.get(random.nextInt(sellQueue.size()));
+                orderBook.removeByOrderId(Side.SELL, order.getOrderId());
+            } else if (operation == 1 && orderBook.hasOrderOfType(Side.BUY)) {
+                List<Order> buyQueue = orderBook.getBuyQueue();
+                Order order = buyQueue.get(random.nextInt(buyQueue.size()));
+                if (order.getQuantity() > 1)
+                    orderBook.decreaseQuantity(order, 1);
+                else
+                    orderBook.removeByOrderId(Side.BUY, order.getOrderId());
+            } else {
+                Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                int price = 960 + random.nextInt(80);
+                orderBook.enqueue(new Order(orderId, security, side, 1 + random.nextInt(50), price, broker,
+                        shareholder));
+            }
+            if (random.nextInt(50) == 0)
+                security.setLastTradePrice(960 + random.nextInt(80));
+
+            CustomPair expected = ReferenceOpeningPrice.find(orderBook.getBuyQueue(), orderBook.getSellQueue(),
+                    security.getLastTradePrice());
+            CustomPair actual = security.findOpeningPrice();
+            assertThat(actual.getFirst()).isEqualTo(expected.getFirst());
+            assertThat(actual.getSecond()).isEqualTo(expected.getSecond());
+        }
+    }
+
+    private static class ReferenceOpeningPrice {
+        static CustomPair find(List<Order> buyQueue, List<Order> sellQueue, int lastTradePrice) {
+            int openingPrice = 0;
+            int tradeableQuantity = 0;
+            int maxFulfilledSellPriceByBuy = 0;
+            int maxTradeableQuantityBuyPrice = 0;
+
+            for (Order buyOrder : buyQueue) {
+                maxTradeableQuantityBuyPrice += buyOrder.getTotalQuantity();
+                CustomPair tradeablePair = calculateTradeableQuantityAndSellPrice(sellQueue, buyOrder.getPrice(),
+                        lastTradePrice, maxTradeableQuantityBuyPrice);
+
+                int maxSellQuantityForBuyPrice = tradeablePair.getFirst();
+                int exchangedQuantityValue = Math.min(maxSellQuantityForBuyPrice, maxTradeableQuantityBuyPrice);
+                int sellPrice = tradeablePair.getSecond();
+
+                if (exchangedQuantityValue > tradeableQuantity) {
+                    openingPrice = buyOrder.getPrice();
+                    tradeableQuantity = exchangedQuantityValue;
+                    maxFulfilledSellPriceByBuy = sellPrice;
+                } else if (exchangedQuantityValue == tradeableQuantity) {
+                    openingPrice = getOptimalOpeningPrice(lastTradePrice, openingPrice, buyOrder.getPrice());
+                    maxFulfilledSellPriceByBuy = getOptimalOpeningPrice(lastTradePrice, openingPrice, sellPrice);
+                }
+            }
+
+            if (tradeableQuantity == 0)
+                openingPrice = 0;
+            else if (openingPrice >= lastTradePrice && lastTradePrice >= maxFulfilledSellPriceByBuy)
+                openingPrice = lastTradePrice;
+            else if (Math.abs(lastTradePrice - openingPrice) >= Math.abs(lastTradePrice - maxFulfilledSellPriceByBuy))
+                openingPrice = maxFulfilledSellPriceByBuy;
+
+            return new CustomPair(openingPrice, tradeableQuantity);
+        }
+
+        private static CustomPair calculateTradeableQuantityAndSellPrice(List<Order> sellQueue, int buyPrice,
+                                                                         int lastTradePrice,
+                                                                         int maxTradeableQuantityBuyPrice) {
+            int maxFulfilledSellQuantity = 0;
+            int nearestSellPrice = Integer.MIN_VALUE;
+
+            for (Order sellOrder : sellQueue) {
+                if (sellOrder.getPrice() <= buyPrice) {
+                    if (maxFulfilledSellQuantity < maxTradeableQuantityBuyPrice ||
+                            Math.abs(lastTradePrice - nearestSellPrice) > Math.abs(lastTradePrice - sellOrder.getPrice()))
+                        nearestSellPrice = sellOrder.getPrice();
+                    maxFulfilledSellQuantity += sellOrder.getTotalQuantity();
+                } else {
+                    break;
+                }
+            }
+
+            return new CustomPair(maxFulfilledSellQuantity, nearestSellPrice);
+        }
+
+        private static int getOptimalOpeningPrice(int lastTradePrice, int currentOpeningPrice, int newPrice) {
+            if (Math.abs(lastTradePrice - currentOpeningPrice) >= Math.abs(lastTradePrice - newPrice))
+                return newPrice;
+            return currentOpeningPrice;
+        }
+    }
+}
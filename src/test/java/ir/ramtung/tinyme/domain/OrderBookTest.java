@@ -4,6 +4,8 @@ import ir.ramtung.tinyme.domain.entity.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -77,4 +79,89 @@ class OrderBookTest {
         orderBook.removeByOrderId(Side.SELL, 10);
         assertThat(orderBook.getSellQueue()).isEqualTo(orders.subList(5, 9));
     }
-}
\ No newline at end of file
+
+    @Test
+    void enqueues_orders_with_equal_price_in_arrival_order() {
+        OrderBook orderBook = security.getOrderBook();
+        Order order = new Order(11, security, Side.BUY, 100, 15450, orders.get(0).getBroker(),
+                orders.get(0).getShareholder());
+        orderBook.enqueue(order);
+        assertThat(orderBook.getBuyQueue()).containsExactly(orders.get(0), orders.get(1), orders.get(2),
+                orders.get(3), order, orders.get(4));
+    }
+
+    @Test
+    void puts_back_order_at_the_head_of_its_price_level() {
+        OrderBook orderBook = security.getOrderBook();
+        orderBook.removeByOrderId(Side.SELL, 7);
+        orderBook.putBack(orders.get(6));
+        assertThat(orderBook.getSellQueue()).containsExactly(orders.get(5), orders.get(6), orders.get(7),
+                orders.get(8), orders.get(9));
+    }
+
+    @Test
+    void removing_the_only_order_of_the_best_level_exposes_the_next_level() {
+        OrderBook orderBook = security.getOrderBook();
+        orderBook.removeFirst(Side.BUY);
+        Order newOrder = new Order(12, security, Side.SELL, 10, 15500, orders.get(0).getBroker(),
+                orders.get(0).getShareholder());
+        assertThat(orderBook.matchWithFirst(newOrder)).isEqualTo(orders.get(1));
+    }
+
+    @Test
+    void removing_all_orders_empties_the_side() {
+        OrderBook orderBook = security.getOrderBook();
+        for (long orderId = 6; orderId <= 10; orderId++)
+            orderBook.removeByOrderId(Side.SELL, orderId);
+        assertThat(orderBook.hasOrderOfType(Side.SELL)).isFalse();
+        assertThat(orderBook.getSellQueue()).isEmpty();
+    }
+
+    @Test
+    void removes_an_order_from_the_middle_of_a_level_by_id() {
+        OrderBook orderBook = security.getOrderBook();
+        Order order = new Order(11, security, Side.BUY, 100, 15450, orders.get(0).getBroker(),
+                orders.get(0).getShareholder());
+        orderBook.enqueue(order);
+        assertThat(orderBook.removeByOrderId(Side.BUY, 4)).isTrue();
+        assertThat(orderBook.findByOrderId(Side.BUY, 4)).isNull();
+        assertThat(orderBook.getBuyQueue()).containsExactly(orders.get(0), orders.get(1), orders.get(2), order,
+                orders.get(4));
+    }
+
+    @Test
+    void sell_quantity_by_shareholder_follows_partial_fills_and_removals() {
+        OrderBook orderBook = security.getOrderBook();
+        Shareholder shareholder = orders.get(0).getShareholder();
+        assertThat(orderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(1840);
+        orderBook.decreaseQuantity(orders.get(5), 50);
+        assertThat(orderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(1790);
+        orderBook.removeByOrderId(Side.SELL, 7);
+        assertThat(orderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(1505);
+        orderBook.removeFirst(Side.SELL);
+        assertThat(orderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(1205);
+    }
+
+    @Test
+    void bulk_enqueue_sorts_by_price_and_keeps_batch_order_within_a_level() {
+        OrderBook orderBook = new OrderBook();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        List<Order> batch = new ArrayList<>();
+        for (int index : new int[] {8, 4, 0, 2, 5, 9, 3, 1, 6, 7}) {
+            Order order = orders.get(index);
+            batch.add(new Order(order.getOrderId(), security, order.getSide(), order.getQuantity(), order.getPrice(),
+                    order.getBroker(), order.getShareholder(), start.minusSeconds(order.getOrderId()),
+                    OrderStatus.NEW, 0, true));
+        }
+        batch.add(new IcebergOrder(11, security, Side.SELL, 500, 15800, orders.get(0).getBroker(),
+                orders.get(0).getShareholder(), start.minusDays(1), 100, 0, true));
+
+        orderBook.enqueueAll(batch);
+
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(orderBook.getSellQueue()).extracting(Order::getOrderId).containsExactly(6L, 11L, 7L, 8L, 9L, 10L);
+        assertThat(orderBook.getSellQueue()).allMatch(order -> order.getStatus() == OrderStatus.QUEUED);
+        assertThat(orderBook.findByOrderId(Side.BUY, 4).getPrice()).isEqualTo(15450);
+        assertThat(orderBook.totalSellQuantityByShareholder(orders.get(0).getShareholder())).isEqualTo(2340);
+    }
+}
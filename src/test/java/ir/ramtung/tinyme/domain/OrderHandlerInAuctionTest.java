@@ -19,6 +19,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import ir.ramtung.tinyme.domain.service.AuctionMatcher;
@@ -179,6 +180,16 @@ public class OrderHandlerInAuctionTest {
         verify(eventPublisher).publish(new OpeningPriceEvent("ABC", 15800, 792));
     }
 
+    @Test
+    void unchanged_openingPrice_is_not_published_again() {
+        stateHandler.handleRequest(new ChangeMatchingStateRq("ABC", MatchingState.AUCTION));
+        setupAuctionOrders();
+        orderHandler.handleRequest(EnterOrderRq.createNewOrderRq(1, "ABC", 200, LocalDateTime.now(), Side.SELL, 300, 15820, 2, shareholder.getShareholderId(), 0, 0, 0));
+        orderHandler.handleRequest(EnterOrderRq.createNewOrderRq(2, "ABC", 201, LocalDateTime.now(), Side.BUY, 100, 15000, 1, shareholder.getShareholderId(), 0, 0, 0));
+        verify(eventPublisher, times(1)).publish(new OpeningPriceEvent("ABC", 15800, 792));
+        verify(eventPublisher).publish(new OrderAcceptedEvent(2, 201));
+    }
+
     @Test
     void openingPrice_is_published_when_new_buy_order_enters() {
         security.setMatchingState(MatchingState.AUCTION);
@@ -4,6 +4,7 @@ import ir.ramtung.tinyme.domain.entity.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -106,9 +107,9 @@ class StopOrderBookTest {
 
     @Test
     void buy_stop_order_is_activatable() {
-        List<StopLimitOrder> buyQueue = security.getStopOrderBook().getBuyQueue();
         int lastTradePrice = 30;
         List<StopLimitOrder> activatableBuyOrders = security.getStopOrderBook().findTriggeredOrders(lastTradePrice, Side.BUY);
+        List<StopLimitOrder> buyQueue = security.getStopOrderBook().getBuyQueue();
         assertThat(buyQueue).hasSize(2);
         assertThat(activatableBuyOrders).hasSize(3);
         assertThat(activatableBuyOrders.get(0).getOrderId()).isEqualTo(1);
@@ -118,9 +119,9 @@ class StopOrderBookTest {
 
     @Test
     void sell_stop_order_is_activatable() {
-        List<StopLimitOrder> sellQueue = security.getStopOrderBook().getSellQueue();
         int lastTradePrice = 40;
         List<StopLimitOrder> activatableSellOrders = security.getStopOrderBook().findTriggeredOrders(lastTradePrice, Side.SELL);
+        List<StopLimitOrder> sellQueue = security.getStopOrderBook().getSellQueue();
         assertThat(sellQueue).hasSize(3);
         assertThat(activatableSellOrders).hasSize(2);
         assertThat(activatableSellOrders.get(0).getOrderId()).isEqualTo(10);
@@ -132,4 +133,42 @@ class StopOrderBookTest {
         int totalSellQuantity = security.getStopOrderBook().totalSellQuantityByShareholder(shareholder);
         assertThat(totalSellQuantity).isEqualTo(1840);
     }
-}
\ No newline at end of file
+
+    @Test
+    void removed_stop_order_is_no_longer_found_by_id() {
+        StopOrderBook stopOrderBook = security.getStopOrderBook();
+        assertThat(stopOrderBook.removeByOrderId(Side.BUY, 3)).isTrue();
+        assertThat(stopOrderBook.findByOrderId(Side.BUY, 3)).isNull();
+        assertThat(stopOrderBook.removeByOrderId(Side.BUY, 3)).isFalse();
+        assertThat(stopOrderBook.getBuyQueue()).containsExactly(orders.get(0), orders.get(1), orders.get(3),
+                orders.get(4));
+    }
+
+    @Test
+    void orders_with_equal_stop_price_are_triggered_in_arrival_order() {
+        StopOrderBook stopOrderBook = security.getStopOrderBook();
+        Broker broker = Broker.builder().build();
+        StopLimitOrder first = new StopLimitOrder(11, security, Side.SELL, 10, 15000, broker, shareholder, 30, 20);
+        StopLimitOrder second = new StopLimitOrder(12, security, Side.SELL, 20, 15000, broker, shareholder, 30, 21);
+        stopOrderBook.enqueue(first);
+        stopOrderBook.enqueue(second);
+        List<StopLimitOrder> activatableSellOrders = stopOrderBook.findTriggeredOrders(25, Side.SELL);
+        assertThat(activatableSellOrders).containsExactly(orders.get(9), orders.get(8), orders.get(7), first, second);
+        assertThat(stopOrderBook.getSellQueue()).containsExactly(orders.get(6), orders.get(5));
+        assertThat(stopOrderBook.findByOrderId(Side.SELL, 11)).isNull();
+        assertThat(stopOrderBook.totalSellQuantityByShareholder(shareholder)).isEqualTo(635);
+    }
+
+    @Test
+    void bulk_enqueue_of_an_unsorted_batch_orders_triggers_like_sequential_enqueue() {
+        StopOrderBook stopOrderBook = new StopOrderBook();
+        List<StopLimitOrder> batch = new ArrayList<>(orders);
+        Collections.reverse(batch);
+        stopOrderBook.enqueueAll(batch);
+
+        assertThat(stopOrderBook.getBuyQueue()).containsExactlyElementsOf(security.getStopOrderBook().getBuyQueue());
+        assertThat(stopOrderBook.getSellQueue()).containsExactlyElementsOf(security.getStopOrderBook().getSellQueue());
+        assertThat(stopOrderBook.findTriggeredOrders(25, Side.SELL)).containsExactly(orders.get(9), orders.get(8),
+                orders.get(7));
+    }
+}
@@ -0,0 +1,109 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TickPriceLadderTest {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+
+    @BeforeEach
+    void setup() {
+        security = Security.builder().isin("ABC").tickSize(10).build();
+        broker = Broker.builder().brokerId(1).credit(100_000_000L).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+    }
+
+    private List<Integer> prices(PriceLadder ladder) {
+        List<Integer> prices = new ArrayList<>();
+        for (PriceLevel level : ladder.levels())
+            prices.add(level.getPrice());
+        return prices;
+    }
+
+    @Test
+    void levels_inside_the_band_are_kept_in_priority_order() {
+        TickPriceLadder ladder = new TickPriceLadder(Side.BUY, 10, 8);
+        ladder.findOrCreate(1000);
+        ladder.findOrCreate(1020);
+        ladder.findOrCreate(990);
+        assertThat(ladder.isInBand(1020)).isTrue();
+        assertThat(prices(ladder)).containsExactly(1020, 1000, 990);
+        assertThat(ladder.best().getPrice()).isEqualTo(1020);
+    }
+
+    @Test
+    void levels_outside_the_band_fall_back_to_the_tree() {
+        TickPriceLadder ladder = new TickPriceLadder(Side.SELL, 10, 8);
+        ladder.findOrCreate(1000);
+        ladder.findOrCreate(2000);
+        ladder.findOrCreate(1010);
+        assertThat(ladder.isInBand(2000)).isFalse();
+        assertThat(ladder.find(2000).getPrice()).isEqualTo(2000);
+        assertThat(prices(ladder)).containsExactly(1000, 1010, 2000);
+    }
+
+    @Test
+    void band_is_recentered_when_the_best_level_leaves_it() {
+        TickPriceLadder ladder = new TickPriceLadder(Side.SELL, 10, 8);
+        PriceLevel near = ladder.findOrCreate(1000);
+        ladder.findOrCreate(2000);
+        ladder.findOrCreate(2010);
+        ladder.remove(near);
+        assertThat(ladder.best().getPrice()).isEqualTo(2000);
+        assertThat(ladder.isInBand(2000)).isTrue();
+        assertThat(ladder.isInBand(2010)).isTrue();
+        assertThat(prices(ladder)).containsExactly(2000, 2010);
+    }
+
+    @Test
+    void band_is_recentered_when_a_better_level_arrives_outside_it() {
+        TickPriceLadder ladder = new TickPriceLadder(Side.BUY, 10, 8);
+        ladder.findOrCreate(1000);
+        ladder.findOrCreate(5000);
+        assertThat(ladder.best().getPrice()).isEqualTo(5000);
+        assertThat(ladder.isInBand(5000)).isTrue();
+        assertThat(ladder.isInBand(1000)).isFalse();
+        assertThat(prices(ladder)).containsExactly(5000, 1000);
+    }
+
+    @Test
+    void tick_array_book_matches_price_tree_book_on_random_operations() {
+        OrderBook treeBook = new OrderBook(OrderBookMode.PRICE_TREE, 10);
+        OrderBook tickBook = new OrderBook(OrderBookMode.TICK_ARRAY, 10);
+        Random random = new Random(7);
+        List<Order> live = new ArrayList<>();
+
+        for (int orderId = 1; orderId <= 2000; orderId++) {
+            if (!live.isEmpty() && random.nextInt(3) == 0) {
+                Order order = live.remove(random.nextInt(live.size()));
+                treeBook.removeByOrderId(order.getSide(), order.getOrderId());
+                tickBook.removeByOrderId(order.getSide(), order.getOrderId());
+            } else {
+                Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                int price = 10 * (random.nextInt(20) == 0 ? random.nextInt(100_000) : 15_000 + random.nextInt(200));
+                Order order = new Order(orderId, security, side, 1 + random.nextInt(100), price, broker, shareholder);
+                treeBook.enqueue(order);
+                tickBook.enqueue(order);
+                live.add(order);
+            }
+            if (random.nextInt(10) == 0 && treeBook.hasOrderOfType(Side.SELL)) {
+                Order first = treeBook.getSellQueue().getFirst();
+                treeBook.removeFirst(Side.SELL);
+                tickBook.removeFirst(Side.SELL);
+                live.remove(first);
+            }
+        }
+
+        assertThat(tickBook.getBuyQueue()).containsExactlyElementsOf(treeBook.getBuyQueue());
+        assertThat(tickBook.getSellQueue()).containsExactlyElementsOf(treeBook.getSellQueue());
+    }
+}
@@ -0,0 +1,172 @@
+package ir.ramtung.tinyme.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
+import jakarta.jms.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AsyncEventSenderTest {
+    @TempDir
+    Path tempDir;
+    private JmsTemplate jmsTemplate;
+    private ConnectionFactory connectionFactory;
+    private Connection connection;
+    private Session session;
+    private MessageConverter converter;
+    private final List<Event> sent = new ArrayList<>();
+
+    @BeforeEach
+    void setup() throws JMSException {
+        jmsTemplate = mock(JmsTemplate.class);
+        connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        session = mock(Session.class);
+        converter = mock(MessageConverter.class);
+        when(jmsTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(jmsTemplate.getMessageConverter()).thenReturn(converter);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(true, Session.SESSION_TRANSACTED)).thenReturn(session);
+        when(session.createProducer(any())).thenReturn(mock(MessageProducer.class));
+        when(converter.toMessage(any(), any())).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            return mock(jakarta.jms.Message.class);
+        });
+    }
+
+    private AsyncEventSender sender(int capacity, AsyncEventSender.Backpressure backpressure) {
+        return new AsyncEventSender(jmsTemplate, new ObjectMapper(), capacity, 4, backpressure,
+                tempDir.resolve("events.spill").toString(), "RS");
+    }
+
+    private List<Event> events(int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 1; i <= count; i++)
+            events.add(new OrderAcceptedEvent(i, i));
+        return events;
+    }
+
+    @Test
+    void queued_events_are_sent_in_transacted_batches_and_flushed_on_stop() throws JMSException {
+        AsyncEventSender sender = sender(100, AsyncEventSender.Backpressure.BLOCK);
+        sender.start();
+        List<Event> events = events(10);
+        events.forEach(sender::enqueue);
+        sender.stop();
+        assertThat(sent).containsExactlyElementsOf(events);
+        verify(session, atLeast(3)).commit();
+    }
+
+    @Test
+    void overflow_is_spilled_to_disk_and_sent_after_the_queue() throws Exception {
+        AsyncEventSender sender = sender(2, AsyncEventSender.Backpressure.SPILL);
+        List<Event> events = events(9);
+        events.forEach(sender::enqueue);
+        assertThat(Files.readAllLines(tempDir.resolve("events.spill"))).hasSize(7);
+        sender.start();
+        sender.stop();
+        assertThat(sent).extracting(event -> ((OrderAcceptedEvent) event).getOrderId())
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(tempDir.resolve("events.spill")).doesNotExist();
+    }
+
+    @Test
+    void overflow_is_dropped_and_counted() {
+        AsyncEventSender sender = sender(2, AsyncEventSender.Backpressure.DROP);
+        events(5).forEach(sender::enqueue);
+        assertThat(sender.getDroppedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void failed_batch_is_resent_after_reconnecting_even_if_rollback_fails() throws Exception {
+        Map<jakarta.jms.Message, Event> converted = new HashMap<>();
+        List<Event> inTransaction = new ArrayList<>();
+        List<Event> committed = new ArrayList<>();
+        AtomicBoolean failNextSend = new AtomicBoolean();
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        when(converter.toMessage(any(), any())).thenAnswer(invocation -> {
+            jakarta.jms.Message message = mock(jakarta.jms.Message.class);
+            converted.put(message, invocation.getArgument(0));
+            return message;
+        });
+        doAnswer(invocation -> {
+            if (failNextSend.getAndSet(false))
+                throw new JMSException("connection lost");
+            inTransaction.add(converted.get(invocation.getArgument(0)));
+            return null;
+        }).when(producer).send(any(jakarta.jms.Message.class));
+        doAnswer(invocation -> {
+            committed.addAll(inTransaction);
+            inTransaction.clear();
+            return null;
+        }).when(session).commit();
+        doThrow(new JMSException("session is closed")).when(session).rollback();
+        doAnswer(invocation -> {
+            inTransaction.clear();
+            return null;
+        }).when(session).close();
+
+        AsyncEventSender sender = sender(100, AsyncEventSender.Backpressure.BLOCK);
+        List<Event> events = events(10);
+        events.subList(0, 2).forEach(sender::enqueue);
+        failNextSend.set(true);
+        sender.start();
+        events.subList(2, 10).forEach(sender::enqueue);
+        sender.stop();
+
+        assertThat(committed).containsExactlyElementsOf(events);
+        verify(session).rollback();
+        verify(connectionFactory, times(2)).createConnection();
+    }
+
+    @Test
+    void sender_reconnects_when_the_broker_is_unavailable() throws JMSException {
+        when(connectionFactory.createConnection()).thenThrow(new JMSException("refused")).thenReturn(connection);
+        AsyncEventSender sender = sender(100, AsyncEventSender.Backpressure.BLOCK);
+        List<Event> events = events(5);
+        events.forEach(sender::enqueue);
+        sender.start();
+        verify(connectionFactory, timeout(5000).times(2)).createConnection();
+        sender.stop();
+        assertThat(sent).containsExactlyElementsOf(events);
+    }
+
+    @Test
+    void unsent_events_are_spilled_when_stopping_without_a_broker() throws Exception {
+        when(connectionFactory.createConnection()).thenThrow(new JMSException("refused"));
+        AsyncEventSender sender = sender(100, AsyncEventSender.Backpressure.BLOCK);
+        events(3).forEach(sender::enqueue);
+        sender.start();
+        sender.stop();
+        assertThat(Files.readAllLines(tempDir.resolve("events.spill"))).hasSize(3);
+    }
+
+    @Test
+    void unreadable_spill_file_is_kept_and_later_spills_are_appended() throws Exception {
+        Path spillFile = tempDir.resolve("events.spill");
+        Files.writeString(spillFile, "no.such.Event\t{}\n");
+        AsyncEventSender sender = sender(100, AsyncEventSender.Backpressure.SPILL);
+        sender.start();
+        events(2).forEach(sender::enqueue);
+        sender.stop();
+        assertThat(sent).isEmpty();
+        assertThat(Files.readAllLines(spillFile)).hasSize(3).first().isEqualTo("no.such.Event\t{}");
+    }
+}
@@ -0,0 +1,130 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.BatchEnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MassCancelRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryCodecTest {
+    private final BinaryCodec codec = new BinaryCodec();
+
+    private Object roundTrip(Object message) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        int length = codec.encode(message, buffer);
+        assertThat(length).isEqualTo(buffer.position());
+        buffer.flip();
+        return codec.decode(buffer);
+    }
+
+    @Test
+    void requests_survive_a_round_trip() {
+        LocalDateTime entryTime = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_456_789);
+        EnterOrderRq enterOrderRq = EnterOrderRq.createUpdateOrderRq(7, "ABC", 11, entryTime, Side.SELL, 300,
+                15450, 2, 3, 100, 50, 15000);
+        DeleteOrderRq deleteOrderRq = new DeleteOrderRq(8, "XYZ", Side.BUY, 12);
+        ChangeMatchingStateRq changeMatchingStateRq = new ChangeMatchingStateRq("ABC", MatchingState.AUCTION);
+        MassCancelRq massCancelRq = new MassCancelRq(9, "ABC", 11L, null, Side.SELL);
+
+        assertThat(roundTrip(enterOrderRq)).usingRecursiveComparison().isEqualTo(enterOrderRq);
+        assertThat(roundTrip(massCancelRq)).usingRecursiveComparison().isEqualTo(massCancelRq);
+        assertThat(roundTrip(deleteOrderRq)).usingRecursiveComparison().isEqualTo(deleteOrderRq);
+        assertThat(roundTrip(changeMatchingStateRq)).usingRecursiveComparison().isEqualTo(changeMatchingStateRq);
+    }
+
+    @Test
+    void events_survive_a_round_trip() {
+        List<Event> events = List.of(
+                new OrderAcceptedEvent(1, 2),
+                new OrderActivatedEvent(1, 2),
+                new OrderDeletedEvent(1, 2),
+                new OrderUpdatedEvent(1, 2),
+                new OrderRejectedEvent(1, 2, List.of(Message.ORDER_ID_NOT_FOUND, Message.INVALID_PEAK_SIZE)),
+                new OrderExecutedEvent(1, 2, List.of(new TradeDTO("ABC", 15000, 10, 3, 4),
+                        new TradeDTO("ABC", 15010, 5, 3, 6))),
+                new OpeningPriceEvent("ABC", 15000, 340),
+                new TradeEvent("ABC", 15000, 10, 3, 4),
+                new SecurityStateChangedEvent("ABC", MatchingState.CONTINUOUS),
+                new SecurirtyStateChangeRejectedEvent("unknown security"),
+                new OrdersCancelledEvent(1, "ABC", 3, 600, 4_500_000)
+        );
+        for (Event event : events)
+            assertThat(roundTrip(event)).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    void batches_survive_a_round_trip() {
+        LocalDateTime entryTime = LocalDateTime.of(2024, 3, 1, 9, 30, 15);
+        BatchEnterOrderRq batchRq = new BatchEnterOrderRq(1, "ABC", 11,
+                List.of(new DeleteOrderRq(2, "ABC", Side.BUY, 20)),
+                List.of(EnterOrderRq.createNewOrderRq(3, "ABC", 21, entryTime, Side.BUY, 100, 15000, 11, 4, 0, 0, 0),
+                        EnterOrderRq.createUpdateOrderRq(4, "ABC", 22, entryTime, Side.SELL, 50, 15100, 11, 4, 0, 0, 0)));
+        BatchOrderResultEvent resultEvent = new BatchOrderResultEvent(1, List.of(
+                new BatchLegResult(2, 20, BatchLegResult.Outcome.DELETED, false, List.of(), List.of()),
+                new BatchLegResult(3, 21, BatchLegResult.Outcome.ACCEPTED, true, List.of(),
+                        List.of(new TradeDTO("ABC", 15000, 10, 21, 7))),
+                BatchLegResult.rejected(4, 22, List.of(Message.ORDER_ID_NOT_FOUND))));
+
+        assertThat(roundTrip(batchRq)).usingRecursiveComparison().isEqualTo(batchRq);
+        assertThat(roundTrip(resultEvent)).usingRecursiveComparison().isEqualTo(resultEvent);
+    }
+
+    @Test
+    void missing_values_are_kept_missing() {
+        EnterOrderRq enterOrderRq = new EnterOrderRq();
+        OrderRejectedEvent rejectedEvent = new OrderRejectedEvent(1, 2, null);
+        rejectedEvent.setTime(null);
+
+        assertThat(roundTrip(enterOrderRq)).usingRecursiveComparison().isEqualTo(enterOrderRq);
+        assertThat(roundTrip(rejectedEvent)).usingRecursiveComparison().isEqualTo(rejectedEvent);
+    }
+
+    @Test
+    void messages_of_a_newer_schema_version_skip_appended_fields() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        OrderExecutedEvent event = new OrderExecutedEvent(1, 2, List.of(new TradeDTO("ABC", 15000, 10, 3, 4)));
+        codec.encode(event, buffer);
+        int blockLength = buffer.getShort(6);
+        byte[] variableData = new byte[buffer.position() - 8 - blockLength];
+        buffer.get(8 + blockLength, variableData);
+        buffer.position(8 + blockLength);
+        buffer.putLong(42);
+        buffer.put(variableData);
+        buffer.putShort(2, (short) (BinaryCodec.SCHEMA_VERSION + 1));
+        buffer.putShort(6, (short) (blockLength + 8));
+        buffer.flip();
+        assertThat(codec.decode(buffer)).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    void messages_of_another_schema_are_rejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.encode(new OrderAcceptedEvent(1, 2), buffer);
+        buffer.putShort(0, (short) 0x1234);
+        buffer.flip();
+        assertThatThrownBy(() -> codec.decode(buffer)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void lengths_that_do_not_fit_the_layout_are_rejected_when_encoding() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        List<String> errors = Collections.nCopies(Short.MAX_VALUE + 1, Message.ORDER_ID_NOT_FOUND);
+        assertThatThrownBy(() -> codec.encode(new OrderRejectedEvent(1, 2, errors), buffer))
+                .isInstanceOf(IllegalArgumentException.class);
+        buffer.clear();
+        assertThatThrownBy(() -> codec.encode(new SecurirtyStateChangeRejectedEvent("x".repeat(Short.MAX_VALUE + 1)),
+                buffer)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,124 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.RequestControl;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import jakarta.jms.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LatencyMonitorTest {
+    private LatencyMonitor latencyMonitor;
+    private OrderHandler orderHandler;
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+
+    @BeforeEach
+    void setup() {
+        latencyMonitor = new LatencyMonitor(true, 1, 0);
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        security = Security.builder().isin("ABC").build();
+        broker = Broker.builder().brokerId(1).credit(100_000_000L).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        securityRepository.addSecurity(security);
+        brokerRepository.addBroker(broker);
+        shareholderRepository.addShareholder(shareholder);
+        orderHandler = new OrderHandler(securityRepository, brokerRepository, shareholderRepository,
+                new EventPublisher(mock(JmsTemplate.class), null, latencyMonitor),
+                new ContinuousMatcher(latencyMonitor), new AuctionMatcher(latencyMonitor),
+                new RequestControl(securityRepository, brokerRepository, shareholderRepository), latencyMonitor);
+    }
+
+    private EnterOrderRq newOrderRq(long id, Side side, int quantity, int price, int stopPrice) {
+        return EnterOrderRq.createNewOrderRq(id, "ABC", id, LocalDateTime.now(), side, quantity, price, 1, 1, 0, 0,
+                stopPrice);
+    }
+
+    @Test
+    void a_matching_new_order_records_every_stage_of_its_request_kind() {
+        security.getOrderBook().enqueue(new Order(1, security, Side.SELL, 100, 15000, broker, shareholder));
+        orderHandler.handleRequest(newOrderRq(2, Side.BUY, 100, 15000, 0));
+
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "VALIDATE")).isEqualTo(1);
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "ORDER_ENTRY")).isEqualTo(1);
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "MATCH")).isEqualTo(1);
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "STOP_CASCADE")).isEqualTo(1);
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "PUBLISH")).isEqualTo(2);
+        assertThat(latencyMonitor.percentile("ABC", "NEW_ORDER", "ORDER_ENTRY", 100))
+                .isGreaterThanOrEqualTo(latencyMonitor.percentile("ABC", "NEW_ORDER", "MATCH", 50));
+        assertThat(latencyMonitor.report()).contains("NEW_ORDER").contains("ORDER_ENTRY");
+    }
+
+    @Test
+    void request_kinds_are_kept_apart() {
+        security.getOrderBook().enqueue(new Order(1, security, Side.SELL, 100, 15000, broker, shareholder));
+        orderHandler.handleRequest(new DeleteOrderRq(2, "ABC", Side.SELL, 1));
+
+        assertThat(latencyMonitor.count("ABC", "DELETE_ORDER", "VALIDATE")).isEqualTo(1);
+        assertThat(latencyMonitor.count("ABC", "DELETE_ORDER", "PUBLISH")).isEqualTo(1);
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "VALIDATE")).isZero();
+        assertThat(latencyMonitor.count("XYZ", "DELETE_ORDER", "VALIDATE")).isZero();
+    }
+
+    @Test
+    void stop_activations_are_recorded_inside_the_cascade() {
+        security.getOrderBook().enqueue(new Order(1, security, Side.SELL, 100, 15000, broker, shareholder));
+        security.getOrderBook().enqueue(new Order(2, security, Side.SELL, 100, 15100, broker, shareholder));
+        orderHandler.handleRequest(newOrderRq(3, Side.BUY, 100, 15100, 15000));
+        orderHandler.handleRequest(newOrderRq(4, Side.BUY, 100, 15000, 0));
+
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "STOP_CASCADE")).isEqualTo(1);
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "MATCH")).isEqualTo(3);
+    }
+
+    @Test
+    void deserialization_is_recorded_against_the_decoded_request() throws Exception {
+        MessageConverter delegate = mock(MessageConverter.class);
+        Message message = mock(Message.class);
+        when(delegate.fromMessage(message)).thenReturn(newOrderRq(1, Side.BUY, 10, 15000, 0));
+
+        new LatencyRecordingMessageConverter(delegate, latencyMonitor).fromMessage(message);
+
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "DESERIALIZE")).isEqualTo(1);
+    }
+
+    @Test
+    void reset_discards_recorded_samples() {
+        orderHandler.handleRequest(newOrderRq(1, Side.BUY, 10, 15000, 0));
+        latencyMonitor.reset();
+
+        assertThat(latencyMonitor.count("ABC", "NEW_ORDER", "VALIDATE")).isZero();
+    }
+
+    @Test
+    void securities_beyond_the_slot_cap_are_recorded_as_others() {
+        LatencyMonitor capped = new LatencyMonitor(true, 1, 0, 1);
+        int slotsPerSecurity = LatencyMonitor.RequestKind.values().length * LatencyMonitor.Stage.values().length;
+        for (int i = 0; i < slotsPerSecurity + 5; i++)
+            capped.record(new DeleteOrderRq(i, "S" + i, Side.BUY, i), LatencyMonitor.Stage.VALIDATE,
+                    capped.startSample());
+
+        assertThat(capped.count("S0", "DELETE_ORDER", "VALIDATE")).isEqualTo(1);
+        assertThat(capped.count("S" + slotsPerSecurity, "DELETE_ORDER", "VALIDATE")).isZero();
+        assertThat(capped.count("*", "DELETE_ORDER", "VALIDATE")).isEqualTo(5);
+    }
+}
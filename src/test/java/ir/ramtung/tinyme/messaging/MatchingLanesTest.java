@@ -0,0 +1,71 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchingLanesTest {
+    private MatchingLanes matchingLanes;
+
+    @AfterEach
+    void shutdown() {
+        if (matchingLanes != null)
+            matchingLanes.stop();
+    }
+
+    @Test
+    void without_lanes_requests_run_on_the_caller_thread() {
+        matchingLanes = new MatchingLanes(0);
+        List<Thread> threads = new ArrayList<>();
+        matchingLanes.execute("ABC", () -> threads.add(Thread.currentThread()));
+        assertThat(threads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    void requests_of_one_security_keep_their_order() throws InterruptedException {
+        matchingLanes = new MatchingLanes(4);
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            int sequence = i;
+            matchingLanes.execute("ABC", () -> {
+                seen.add(sequence);
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 1000; i++)
+            assertThat(seen.get(i)).isEqualTo(i);
+    }
+
+    @Test
+    void broker_credit_is_never_overdrawn_from_different_lanes() throws InterruptedException {
+        matchingLanes = new MatchingLanes(4);
+        Broker broker = Broker.builder().brokerId(1).credit(10_000).build();
+        AtomicInteger accepted = new AtomicInteger();
+        List<String> isins = new ArrayList<>();
+        for (int i = 0; isins.size() < 4; i++)
+            if (matchingLanes.laneOf("SEC" + i) == isins.size())
+                isins.add("SEC" + i);
+        CountDownLatch done = new CountDownLatch(4 * 5000);
+        for (int i = 0; i < 5000; i++)
+            for (String isin : isins)
+                matchingLanes.execute(isin, () -> {
+                    if (broker.tryReserveCredit(3))
+                        accepted.incrementAndGet();
+                    done.countDown();
+                });
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(accepted.get()).isEqualTo(3333);
+        assertThat(broker.getCredit()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,39 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.*;
+
+class MultiplexedRequestDispatcherTest {
+    @Test
+    void requests_of_all_types_are_routed_in_arrival_order() {
+        OrderHandler orderHandler = mock(OrderHandler.class);
+        ChangeMatchingStateHandler stateHandler = mock(ChangeMatchingStateHandler.class);
+        RequestRouter router = new RequestRouter(orderHandler, stateHandler, new MatchingLanes(0),
+                new RequestPipeline(0, orderHandler, stateHandler, mock(EventPublisher.class)));
+        MultiplexedRequestDispatcher dispatcher = new MultiplexedRequestDispatcher(router);
+
+        EnterOrderRq enterOrderRq = EnterOrderRq.createNewOrderRq(1, "ABC", 1, LocalDateTime.now(), Side.BUY, 10,
+                15000, 1, 1, 0, 0, 0);
+        ChangeMatchingStateRq changeMatchingStateRq = new ChangeMatchingStateRq("ABC", MatchingState.AUCTION);
+        DeleteOrderRq deleteOrderRq = new DeleteOrderRq(2, "ABC", Side.BUY, 1);
+        dispatcher.receiveRequest(enterOrderRq);
+        dispatcher.receiveRequest(changeMatchingStateRq);
+        dispatcher.receiveRequest(deleteOrderRq);
+
+        InOrder inOrder = inOrder(orderHandler, stateHandler);
+        inOrder.verify(orderHandler).handleRequest(enterOrderRq);
+        inOrder.verify(stateHandler).handleRequest(changeMatchingStateRq);
+        inOrder.verify(orderHandler).handleRequest(deleteOrderRq);
+    }
+}
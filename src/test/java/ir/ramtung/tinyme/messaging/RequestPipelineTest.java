@@ -0,0 +1,113 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.RequestJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jms.core.JmsTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class RequestPipelineTest {
+    private JmsTemplate jmsTemplate;
+    private OrderHandler orderHandler;
+    private RequestPipeline requestPipeline;
+
+    @BeforeEach
+    void setup() {
+        jmsTemplate = mock(JmsTemplate.class);
+        EventPublisher eventPublisher = new EventPublisher(jmsTemplate);
+        orderHandler = mock(OrderHandler.class);
+        when(orderHandler.prevalidate(any())).thenAnswer(invocation -> {
+            EnterOrderRq rq = invocation.getArgument(0);
+            return rq.getQuantity() > 0 ? null : new InvalidRequestException(Message.ORDER_QUANTITY_NOT_POSITIVE);
+        });
+        doAnswer(invocation -> {
+            EnterOrderRq rq = invocation.getArgument(0);
+            InvalidRequestException rejection = invocation.getArgument(1);
+            if (rejection == null)
+                eventPublisher.publish(new OrderAcceptedEvent(rq.getRequestId(), rq.getOrderId()));
+            else
+                eventPublisher.publish(new OrderRejectedEvent(rq.getRequestId(), rq.getOrderId(), rejection.getReasons()));
+            return null;
+        }).when(orderHandler).handleValidatedRequest(any(), any());
+        requestPipeline = new RequestPipeline(8, orderHandler, mock(ChangeMatchingStateHandler.class), eventPublisher);
+        requestPipeline.start();
+    }
+
+    @AfterEach
+    void shutdown() {
+        requestPipeline.stop();
+    }
+
+    private EnterOrderRq newOrderRq(long requestId, int quantity) {
+        return EnterOrderRq.createNewOrderRq(requestId, "ABC", requestId, LocalDateTime.now(), Side.BUY, quantity,
+                15000, 1, 1, 0, 0, 0);
+    }
+
+    @Test
+    void requests_pass_all_stages_in_order_and_bursts_wrap_the_ring() {
+        for (int i = 1; i <= 100; i++)
+            requestPipeline.submit(newOrderRq(i, i % 10 == 0 ? 0 : 10));
+        requestPipeline.stop();
+
+        InOrder inOrder = inOrder(jmsTemplate);
+        for (int i = 1; i <= 100; i++) {
+            if (i % 10 == 0)
+                inOrder.verify(jmsTemplate).convertAndSend((String) isNull(), eq(new OrderRejectedEvent(i, i,
+                        List.of(Message.ORDER_QUANTITY_NOT_POSITIVE))));
+            else
+                inOrder.verify(jmsTemplate).convertAndSend((String) isNull(), eq(new OrderAcceptedEvent(i, i)));
+        }
+        assertThat(requestPipeline.getQueueDepth()).isZero();
+        assertThat(requestPipeline.getMatchingLag()).isZero();
+    }
+
+    @Test
+    void request_whose_journal_append_fails_is_rejected() {
+        RequestJournal requestJournal = mock(RequestJournal.class);
+        when(requestJournal.isEnabled()).thenReturn(true);
+        when(requestJournal.append(any())).thenAnswer(invocation -> {
+            EnterOrderRq rq = invocation.getArgument(0);
+            if (rq.getRequestId() == 2)
+                throw new UncheckedIOException(new IOException("No space left on device"));
+            return rq.getRequestId();
+        });
+        RequestPipeline journaledPipeline = new RequestPipeline(8, orderHandler, mock(ChangeMatchingStateHandler.class),
+                new EventPublisher(jmsTemplate), requestJournal, null, null);
+        journaledPipeline.start();
+        for (int i = 1; i <= 3; i++)
+            journaledPipeline.submit(newOrderRq(i, 10));
+        journaledPipeline.stop();
+
+        InOrder inOrder = inOrder(jmsTemplate);
+        inOrder.verify(jmsTemplate).convertAndSend((String) isNull(), eq(new OrderAcceptedEvent(1, 1)));
+        inOrder.verify(jmsTemplate).convertAndSend((String) isNull(), eq(new OrderRejectedEvent(2, 2,
+                List.of(Message.REQUEST_NOT_JOURNALED))));
+        inOrder.verify(jmsTemplate).convertAndSend((String) isNull(), eq(new OrderAcceptedEvent(3, 3)));
+        verify(requestJournal, never()).awaitDurable(-1);
+    }
+
+    @Test
+    void ring_size_must_be_a_power_of_two() {
+        assertThatThrownBy(() -> new RequestRingBuffer(12, 3)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,67 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.Request;
+import ir.ramtung.tinyme.repository.RequestJournal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RequestRouterTest {
+    @Test
+    void journal_cannot_be_combined_with_matching_lanes() {
+        OrderHandler orderHandler = mock(OrderHandler.class);
+        ChangeMatchingStateHandler stateHandler = mock(ChangeMatchingStateHandler.class);
+        RequestJournal journal = mock(RequestJournal.class);
+        when(journal.isEnabled()).thenReturn(true);
+        MatchingLanes lanes = new MatchingLanes(2);
+        try {
+            assertThatIllegalStateException().isThrownBy(() -> new RequestRouter(orderHandler, stateHandler, lanes,
+                    new RequestPipeline(0, orderHandler, stateHandler, mock(EventPublisher.class)), journal, null));
+        } finally {
+            lanes.stop();
+        }
+    }
+
+    @Test
+    void direct_dispatch_handles_requests_in_journal_order() throws Exception {
+        List<Request> journaled = Collections.synchronizedList(new ArrayList<>());
+        List<Request> handled = Collections.synchronizedList(new ArrayList<>());
+        OrderHandler orderHandler = mock(OrderHandler.class);
+        doAnswer(invocation -> handled.add(invocation.getArgument(0))).when(orderHandler).handleRequest(any());
+        ChangeMatchingStateHandler stateHandler = mock(ChangeMatchingStateHandler.class);
+        RequestJournal journal = mock(RequestJournal.class);
+        when(journal.isEnabled()).thenReturn(true);
+        when(journal.append(any())).thenAnswer(invocation -> {
+            journaled.add(invocation.getArgument(0));
+            Thread.yield();
+            return (long) journaled.size();
+        });
+        MatchingLanes lanes = new MatchingLanes(0);
+        RequestRouter router = new RequestRouter(orderHandler, stateHandler, lanes,
+                new RequestPipeline(0, orderHandler, stateHandler, mock(EventPublisher.class)), journal, null);
+
+        ExecutorService listeners = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 500; i++) {
+            Request request = new DeleteOrderRq(i, "ABC", Side.BUY, i);
+            listeners.execute(() -> router.route(request));
+        }
+        listeners.shutdown();
+        assertThat(listeners.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(handled).hasSize(500).containsExactlyElementsOf(journaled);
+    }
+}
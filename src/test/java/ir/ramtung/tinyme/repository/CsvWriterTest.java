@@ -0,0 +1,68 @@
+package ir.ramtung.tinyme.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvWriterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void committed_rows_replace_the_target_file() throws Exception {
+        Path target = directory.resolve("orders.csv");
+        Files.writeString(target, "stale\n");
+        LocalDateTime withNanos = LocalDateTime.of(2024, 3, 1, 9, 5, 0, 120_000_000);
+        LocalDateTime onTheMinute = LocalDateTime.of(2024, 12, 31, 23, 59);
+        try (CsvWriter writer = new CsvWriter(target, "id,name,amount,time")) {
+            writer.field(1).field("Alpha").field(-15_000_000_000L).field(withNanos).endRow();
+            writer.field(Long.MIN_VALUE).field("Ünïcode").field(0).field(onTheMinute).endRow();
+            writer.field(3).field((String) null).field(42).field(onTheMinute).endRow();
+            writer.commit();
+        }
+
+        List<String> lines = Files.readAllLines(target);
+        assertThat(lines).containsExactly(
+                "id,name,amount,time",
+                "1,Alpha,-15000000000,2024-03-01T09:05:00.120000000",
+                Long.MIN_VALUE + ",Ünïcode,0,2024-12-31T23:59:00",
+                "3,,42,2024-12-31T23:59:00");
+        assertThat(LocalDateTime.parse(lines.get(1).split(",")[3])).isEqualTo(withNanos);
+        assertThat(LocalDateTime.parse(lines.get(2).split(",")[3])).isEqualTo(onTheMinute);
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void rows_spanning_many_buffers_are_written_in_order() throws Exception {
+        Path target = directory.resolve("large.csv");
+        try (CsvWriter writer = new CsvWriter(target, "id")) {
+            for (int i = 0; i < 100_000; i++)
+                writer.field(i).endRow();
+            writer.commit();
+        }
+        List<String> lines = Files.readAllLines(target);
+        assertThat(lines).hasSize(100_001);
+        assertThat(lines.get(100_000)).isEqualTo("99999");
+    }
+
+    @Test
+    void an_uncommitted_write_leaves_the_target_untouched() throws Exception {
+        Path target = directory.resolve("brokers.csv");
+        Files.writeString(target, "brokerId,name,credit\n1,Alpha,100\n");
+        try (CsvWriter writer = new CsvWriter(target, "brokerId,name,credit")) {
+            writer.field(2).field("Beta").field(200).endRow();
+        }
+        assertThat(Files.readString(target)).isEqualTo("brokerId,name,credit\n1,Alpha,100\n");
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+}
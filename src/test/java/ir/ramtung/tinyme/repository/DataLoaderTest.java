@@ -0,0 +1,72 @@
+package ir.ramtung.tinyme.repository;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.ChangeMatchingStateHandler;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DataLoaderTest {
+    @TempDir
+    Path directory;
+    private SecurityRepository securityRepository;
+    private DataLoader dataLoader;
+
+    @BeforeEach
+    void setup() {
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        securityRepository = new SecurityRepository();
+        dataLoader = new DataLoader(brokerRepository, shareholderRepository, securityRepository,
+                mock(RequestJournal.class), mock(SnapshotStore.class), mock(OrderHandler.class),
+                mock(ChangeMatchingStateHandler.class), mock(EventPublisher.class));
+        for (String name : new String[] {"broker", "shareholder", "security", "position", "orderBook"})
+            ReflectionTestUtils.setField(dataLoader, name + "CsvResource",
+                    new FileSystemResource(directory.resolve(name.toLowerCase() + ".csv")));
+
+        Security security = Security.builder().isin("ABC").build();
+        securityRepository.addSecurity(security);
+        Broker broker = Broker.builder().brokerId(1).name("Alpha").credit(1_000_000L).build();
+        brokerRepository.addBroker(broker);
+        Shareholder shareholder = Shareholder.builder().shareholderId(2).name("Bob").build();
+        shareholder.incPosition(security, 1_000);
+        shareholderRepository.addShareholder(shareholder);
+
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        OrderBook orderBook = security.getOrderBook();
+        IcebergOrder iceberg = new IcebergOrder(1, security, SELL, 300, 15800, broker, shareholder, start, 100,
+                OrderStatus.NEW, 0, true);
+        orderBook.enqueue(iceberg);
+        orderBook.enqueue(new Order(2, security, SELL, 100, 15800, broker, shareholder, start.plusSeconds(1),
+                OrderStatus.NEW, 0, true));
+        orderBook.enqueue(new Order(3, security, SELL, 50, 15700, broker, shareholder, start.plusSeconds(2),
+                OrderStatus.NEW, 0, true));
+        orderBook.enqueue(new Order(4, security, BUY, 70, 15500, broker, shareholder, start.plusSeconds(3),
+                OrderStatus.NEW, 0, true));
+        orderBook.removeByOrderId(SELL, 1);
+        orderBook.enqueue(iceberg);
+    }
+
+    @Test
+    void reloaded_order_book_keeps_requeued_orders_behind_later_entries() throws Exception {
+        dataLoader.saveAll();
+        dataLoader.loadAll();
+
+        OrderBook orderBook = securityRepository.findSecurityByIsin("ABC").getOrderBook();
+        assertThat(orderBook.getSellQueue()).extracting(Order::getOrderId).containsExactly(3L, 2L, 1L);
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(4L);
+        assertThat(orderBook.findByOrderId(SELL, 1).getEntryTime()).isEqualTo(LocalDateTime.of(2024, 3, 1, 9, 0));
+    }
+}
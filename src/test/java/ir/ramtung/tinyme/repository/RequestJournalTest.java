@@ -0,0 +1,169 @@
+package ir.ramtung.tinyme.repository;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.BinaryCodec;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.Request;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestJournalTest {
+    @TempDir
+    Path directory;
+
+    private RequestJournal open(int segmentSize, RequestJournal.FsyncPolicy fsyncPolicy) {
+        RequestJournal journal = new RequestJournal(segmentSize, directory.toString(), fsyncPolicy, 4, 100);
+        journal.start();
+        return journal;
+    }
+
+    private static EnterOrderRq newOrderRq(long requestId) {
+        return EnterOrderRq.createNewOrderRq(requestId, "ABC", requestId, LocalDateTime.of(2024, 3, 1, 9, 0),
+                Side.BUY, 10, 15000, 1, 1, 0, 0, 0);
+    }
+
+    private List<Request> replayAll(RequestJournal journal, long afterSequence) {
+        List<Request> replayed = new ArrayList<>();
+        journal.replay(afterSequence, replayed::add);
+        return replayed;
+    }
+
+    @ParameterizedTest
+    @EnumSource(RequestJournal.FsyncPolicy.class)
+    void appended_requests_are_replayed_in_order_across_segments(RequestJournal.FsyncPolicy fsyncPolicy) throws Exception {
+        RequestJournal journal = open(256, fsyncPolicy);
+        List<Request> appended = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            Request request = i % 5 == 0 ? new DeleteOrderRq(i, "ABC", Side.BUY, i - 1) : newOrderRq(i);
+            appended.add(request);
+            journal.awaitDurable(journal.append(request));
+        }
+        journal.stop();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+        assertThat(journal.getDurableSequence()).isEqualTo(20);
+        assertThat(replayAll(journal, 0)).usingRecursiveFieldByFieldElementComparator().isEqualTo(appended);
+        assertThat(replayAll(journal, 15)).usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(appended.subList(15, 20));
+    }
+
+    @Test
+    void reopened_journal_continues_after_the_last_record() {
+        RequestJournal journal = open(4096, RequestJournal.FsyncPolicy.GROUP);
+        journal.append(newOrderRq(1));
+        journal.append(newOrderRq(2));
+        journal.stop();
+
+        RequestJournal reopened = open(4096, RequestJournal.FsyncPolicy.GROUP);
+        assertThat(reopened.getLastSequence()).isEqualTo(2);
+        assertThat(reopened.append(newOrderRq(3))).isEqualTo(3);
+        reopened.stop();
+
+        assertThat(replayAll(reopened, 0)).extracting(request -> ((EnterOrderRq) request).getRequestId())
+                .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void torn_record_at_the_tail_is_discarded() throws Exception {
+        RequestJournal journal = open(4096, RequestJournal.FsyncPolicy.NONE);
+        journal.append(newOrderRq(1));
+        journal.append(newOrderRq(2));
+        journal.stop();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        List<Request> intact = replayAll(journal, 0);
+        int recordLength = 16 + new BinaryCodec().encode(newOrderRq(1), ByteBuffer.allocate(4096));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(recordLength + recordLength - 1);
+            file.write(0x7f);
+        }
+
+        RequestJournal reopened = open(4096, RequestJournal.FsyncPolicy.NONE);
+        assertThat(reopened.getLastSequence()).isEqualTo(1);
+        assertThat(replayAll(reopened, 0)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(intact.get(0));
+        reopened.stop();
+    }
+
+    private Path newestSegment() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.max(Path::compareTo).orElseThrow();
+        }
+    }
+
+    private void assertContinuesAfter(long lastSequence) {
+        RequestJournal reopened = open(256, RequestJournal.FsyncPolicy.NONE);
+        assertThat(reopened.getLastSequence()).isEqualTo(lastSequence);
+        assertThat(reopened.append(newOrderRq(100))).isEqualTo(lastSequence + 1);
+        reopened.stop();
+
+        RequestJournal replayed = open(256, RequestJournal.FsyncPolicy.NONE);
+        assertThat(replayAll(replayed, lastSequence)).extracting(request -> ((EnterOrderRq) request).getRequestId())
+                .containsExactly(100L);
+        replayed.stop();
+    }
+
+    @Test
+    void empty_newest_segment_keeps_the_sequence_of_its_name() throws Exception {
+        RequestJournal journal = open(256, RequestJournal.FsyncPolicy.NONE);
+        for (int i = 1; i <= 5; i++)
+            journal.append(newOrderRq(i));
+        journal.stop();
+        Files.createFile(directory.resolve(String.format("%020d.journal", 6)));
+
+        assertContinuesAfter(5);
+    }
+
+    @Test
+    void torn_first_record_of_the_newest_segment_keeps_the_sequence_of_its_name() throws Exception {
+        RequestJournal journal = open(256, RequestJournal.FsyncPolicy.NONE);
+        for (int i = 1; i <= 20; i++)
+            journal.append(newOrderRq(i));
+        journal.stop();
+        Path segment = newestSegment();
+        String name = segment.getFileName().toString();
+        long firstSequence = Long.parseLong(name.substring(0, name.indexOf('.')));
+        assertThat(firstSequence).isGreaterThan(1);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(20);
+            file.write(0x7f);
+        }
+
+        assertContinuesAfter(firstSequence - 1);
+    }
+
+    @Test
+    void truncation_drops_only_segments_covered_by_a_snapshot() throws Exception {
+        RequestJournal journal = open(256, RequestJournal.FsyncPolicy.NONE);
+        for (int i = 1; i <= 20; i++)
+            journal.append(newOrderRq(i));
+        journal.truncate(12);
+
+        assertThat(replayAll(journal, 12)).extracting(request -> ((EnterOrderRq) request).getRequestId())
+                .containsExactly(13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L);
+        assertThat(replayAll(journal, 0).size()).isLessThan(20);
+        journal.truncate(20);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+        journal.stop();
+    }
+}
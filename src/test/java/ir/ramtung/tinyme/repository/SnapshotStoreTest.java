@@ -0,0 +1,156 @@
+package ir.ramtung.tinyme.repository;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotStoreTest {
+    @TempDir
+    Path directory;
+    private BrokerRepository brokerRepository;
+    private ShareholderRepository shareholderRepository;
+    private SecurityRepository securityRepository;
+    private SnapshotStore snapshotStore;
+
+    @BeforeEach
+    void setup() {
+        brokerRepository = new BrokerRepository();
+        shareholderRepository = new ShareholderRepository();
+        securityRepository = new SecurityRepository();
+        snapshotStore = new SnapshotStore(brokerRepository, shareholderRepository, securityRepository,
+                directory.toString(), 3);
+
+        Security security = Security.builder()
+                .isin("ABC")
+                .tickSize(10)
+                .lotSize(5)
+                .orderBook(new OrderBook(OrderBookMode.TICK_ARRAY, 10))
+                .state(MatchingState.AUCTION)
+                .lastTradePrice(15700)
+                .publishedOpeningPrice(new CustomPair(15750, 40))
+                .build();
+        securityRepository.addSecurity(security);
+        Broker broker = Broker.builder().brokerId(1).name("Alpha").credit(1_000_000L).build();
+        brokerRepository.addBroker(broker);
+        Shareholder shareholder = Shareholder.builder().shareholderId(2).name("Bob").build();
+        shareholder.incPosition(security, 700);
+        shareholderRepository.addShareholder(shareholder);
+
+        LocalDateTime entryTime = LocalDateTime.of(2024, 3, 1, 9, 0, 0, 123_456_789);
+        security.getOrderBook().restore(new Order(1, security, BUY, 100, 15500, broker, shareholder, entryTime,
+                OrderStatus.QUEUED, 20, true));
+        security.getOrderBook().restore(new Order(2, security, BUY, 60, 15500, broker, shareholder, entryTime,
+                OrderStatus.QUEUED, 0, false));
+        security.getOrderBook().restore(new IcebergOrder(3, security, SELL, 90, 15800, broker, shareholder,
+                entryTime, 30, 12, OrderStatus.QUEUED, 0, true));
+        security.getStopOrderBook().restore(new StopLimitOrder(4, security, BUY, 50, 16000, broker, shareholder,
+                entryTime, 15900, OrderStatus.NEW, 44));
+    }
+
+    @Test
+    void a_loaded_snapshot_restores_books_credits_and_positions() throws Exception {
+        snapshotStore.write(42);
+        brokerRepository.findBrokerById(1).decreaseCreditBy(500);
+        securityRepository.clear();
+
+        assertThat(snapshotStore.load()).isEqualTo(42);
+
+        Security security = securityRepository.findSecurityByIsin("ABC");
+        assertThat(security.getLotSize()).isEqualTo(5);
+        assertThat(security.getState()).isEqualTo(MatchingState.AUCTION);
+        assertThat(security.getLastTradePrice()).isEqualTo(15700);
+        assertThat(security.getPublishedOpeningPrice().getFirst()).isEqualTo(15750);
+        assertThat(security.getOrderBook().getMode()).isEqualTo(OrderBookMode.TICK_ARRAY);
+        assertThat(security.getOrderBook().getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L);
+        Order first = security.getOrderBook().getBuyQueue().get(0);
+        assertThat(first.getEntryTime()).isEqualTo(LocalDateTime.of(2024, 3, 1, 9, 0, 0, 123_456_789));
+        assertThat(first.getMinimumExecutionQuantity()).isEqualTo(20);
+        assertThat(first.getSecurity()).isSameAs(security);
+        assertThat(first.getBroker()).isSameAs(brokerRepository.findBrokerById(1));
+
+        IcebergOrder iceberg = (IcebergOrder) security.getOrderBook().findByOrderId(SELL, 3);
+        assertThat(iceberg.getTotalQuantity()).isEqualTo(90);
+        assertThat(iceberg.getDisplayedQuantity()).isEqualTo(12);
+        assertThat(iceberg.getPeakSize()).isEqualTo(30);
+
+        StopLimitOrder stop = (StopLimitOrder) security.getStopOrderBook().getBuyQueue().get(0);
+        assertThat(stop.getStopPrice()).isEqualTo(15900);
+        assertThat(stop.getRequestId()).isEqualTo(44);
+
+        assertThat(brokerRepository.findBrokerById(1).getCredit()).isEqualTo(1_000_000L);
+        assertThat(brokerRepository.findBrokerById(1).getName()).isEqualTo("Alpha");
+        assertThat(shareholderRepository.findShareholderById(2).hasEnoughPositionsOn(security, 700)).isTrue();
+        assertThat(shareholderRepository.findShareholderById(2).hasEnoughPositionsOn(security, 701)).isFalse();
+    }
+
+    @Test
+    void only_the_latest_snapshot_is_kept() throws Exception {
+        snapshotStore.write(10);
+        brokerRepository.findBrokerById(1).increaseCreditBy(5);
+        snapshotStore.write(20);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .containsExactly(String.format("%020d.snapshot", 20));
+        }
+        assertThat(snapshotStore.load()).isEqualTo(20);
+        assertThat(brokerRepository.findBrokerById(1).getCredit()).isEqualTo(1_000_005L);
+    }
+
+    @Test
+    void snapshots_are_due_every_interval_requests() {
+        assertThat(Stream.generate(snapshotStore::countRequest).limit(7))
+                .containsExactly(false, false, true, false, false, true, false);
+        assertThat(new SnapshotStore(brokerRepository, shareholderRepository, securityRepository,
+                directory.toString(), 0).countRequest()).isFalse();
+        assertThat(snapshotStore.hasSnapshot()).isFalse();
+    }
+
+    private void awaitCheckpoint() throws InterruptedException {
+        for (int attempt = 0; attempt < 500 && snapshotStore.isCheckpointing(); attempt++)
+            Thread.sleep(10);
+        assertThat(snapshotStore.isCheckpointing()).isFalse();
+    }
+
+    @Test
+    void a_checkpoint_keeps_the_state_at_its_cut_while_matching_continues() throws Exception {
+        Security security = securityRepository.findSecurityByIsin("ABC");
+        Shareholder shareholder = shareholderRepository.findShareholderById(2);
+        CountDownLatch release = new CountDownLatch(1);
+        assertThat(snapshotStore.checkpoint(7, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        })).isTrue();
+
+        snapshotStore.beforeWrite("ABC");
+        security.getOrderBook().removeByOrderId(BUY, 1);
+        shareholder.incPosition(security, 50);
+        brokerRepository.findBrokerById(1).decreaseCreditBy(500);
+        assertThat(snapshotStore.checkpoint(8, () -> {})).isFalse();
+        release.countDown();
+        awaitCheckpoint();
+
+        assertThat(snapshotStore.load()).isEqualTo(7);
+        Security restored = securityRepository.findSecurityByIsin("ABC");
+        assertThat(restored.getOrderBook().getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L);
+        assertThat(brokerRepository.findBrokerById(1).getCredit()).isEqualTo(1_000_000L);
+        assertThat(shareholderRepository.findShareholderById(2).hasEnoughPositionsOn(restored, 701)).isFalse();
+        assertThat(snapshotStore.getLastCheckpointPauseMicros()).isLessThan(TimeUnit.SECONDS.toMicros(1));
+    }
+}